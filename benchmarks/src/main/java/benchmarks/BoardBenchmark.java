@@ -0,0 +1,187 @@
+package benchmarks;
+
+import board.Board;
+import board.Cell;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardBenchmark {
+
+    //  Benchmarks for the Board operations that run on every click or on
+    //      every new game. Operations that change the board are given a fresh
+    //      board for each invocation by an invocation-level setup, which JMH
+    //      keeps out of the measured time. For the smallest boards, the
+    //      timing overhead of invocation-level setup is a noticeable part of
+    //      the result, so those numbers are best compared with each other
+    //      rather than read as absolute costs.
+
+    @State(Scope.Thread)
+    public static class EmptyBoard {
+        Board board;
+
+        @Setup(Level.Invocation)
+        public void setUp(BoardConfig config) {
+            board = config.newBoard();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class UnfinishedBoard {
+        BoardConfig.DeferredBoard board;
+
+        @Setup(Level.Invocation)
+        public void setUp(BoardConfig config) {
+            board = config.newDeferredBoard();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PopulatedBoard {
+        Board board;
+
+        @Setup(Level.Invocation)
+        public void setUp(BoardConfig config) {
+            board = config.newPopulatedBoard();
+        }
+    }
+
+    //  A board on which the first click has been made, along with the
+    //      positions of every cell it revealed. These boards are only read
+    //      by the benchmarks that use them, so one board serves the whole
+    //      trial.
+    @State(Scope.Thread)
+    public static class OpenedBoard {
+        Board board;
+        int[] revealedRows, revealedCols;
+        int count;
+
+        @Setup(Level.Trial)
+        public void setUp(BoardConfig config) {
+            board = config.newPopulatedBoard();
+            board.leftClickCell(config.rows / 2, config.cols / 2);
+            revealedRows = new int[16];
+            revealedCols = new int[16];
+            count = 0;
+            for (int row=0; row<config.rows; row++)
+                for (int col=0; col<config.cols; col++)
+                    if (board.getViewState(row, col) <= Cell.REVEALED_8) {
+                        if (count == revealedRows.length) {
+                            revealedRows = Arrays.copyOf(revealedRows, count * 2);
+                            revealedCols = Arrays.copyOf(revealedCols, count * 2);
+                        }
+                        revealedRows[count] = row;
+                        revealedCols[count++] = col;
+                    }
+        }
+    }
+
+    //  An opened board on which every mine bordering the revealed area has
+    //      been flagged, along with the positions of the revealed numbers
+    //      that still have hidden neighbors. Chording each of those numbers
+    //      reveals the next ring of cells around the opening.
+    @State(Scope.Thread)
+    public static class FlaggedBoard {
+        Board board;
+        int[] chordRows, chordCols;
+        int count;
+
+        @Setup(Level.Invocation)
+        public void setUp(BoardConfig config) {
+            int rows = config.rows;
+            int cols = config.cols;
+            board = config.newPopulatedBoard();
+            board.leftClickCell(rows / 2, cols / 2);
+            byte[] layout = board.getLayout();
+            chordRows = new int[16];
+            chordCols = new int[16];
+            count = 0;
+            for (int row=0; row<rows; row++)
+                for (int col=0; col<cols; col++) {
+                    int state = board.getViewState(row, col);
+                    if (state == 0 || state > Cell.REVEALED_8)
+                        continue;
+                    for (int i=Math.max(row-1, 0); i<=Math.min(row+1, rows-1); i++)
+                        for (int j=Math.max(col-1, 0); j<=Math.min(col+1, cols-1); j++)
+                            if ((layout[i*cols + j] & Board.LAYOUT_MINE) != 0
+                                    && board.getViewState(i, j) == Cell.UNREVEALED)
+                                board.rightClickCell(i, j, false);
+                    if (board.getHiddenAdjacent(row, col) == 0)
+                        continue;
+                    if (count == chordRows.length) {
+                        chordRows = Arrays.copyOf(chordRows, count * 2);
+                        chordCols = Arrays.copyOf(chordCols, count * 2);
+                    }
+                    chordRows[count] = row;
+                    chordCols[count++] = col;
+                }
+        }
+    }
+
+    //  Mine placement followed by finishPopulating, as done on the first
+    //      click of every game.
+    @Benchmark
+    public Board populateBoard(EmptyBoard state, BoardConfig config) {
+        config.populate(state.board);
+        return state.board;
+    }
+
+    //  finishPopulating on its own, which counts every cell's adjacent mines.
+    //      For the cell engine, this also includes creating the EmptyCells.
+    @Benchmark
+    public Object addAdjacent(UnfinishedBoard state) {
+        state.board.finish();
+        return state.board;
+    }
+
+    //  The first click in the middle of the board, which is always blank and
+    //      so opens an area through chainClickCells.
+    @Benchmark
+    public boolean chainClickCells(PopulatedBoard state, BoardConfig config) {
+        return state.board.leftClickCell(config.rows / 2, config.cols / 2);
+    }
+
+    //  checkChord on every revealed cell of an opened board. The result is
+    //      reported per call to the benchmark, so divide by the number of
+    //      revealed cells for the cost of a single check.
+    @Benchmark
+    public int checkChord(OpenedBoard state) {
+        int sum = 0;
+        for (int i=0; i<state.count; i++)
+            sum += state.board.checkChord(state.revealedRows[i], state.revealedCols[i]);
+        return sum;
+    }
+
+    //  A left chord on every number bordering the first opening. Each chord
+    //      clicks the number's neighbors and spreads into any blank cells it
+    //      reveals.
+    @Benchmark
+    public boolean chordClickLeft(FlaggedBoard state) {
+        boolean clickedMine = false;
+        for (int i=0; i<state.count; i++)
+            if (state.board.checkChord(state.chordRows[i], state.chordCols[i]) == Board.REVEAL_CHORD)
+                clickedMine |= state.board.chordClickLeft(state.chordRows[i], state.chordCols[i]);
+        return clickedMine;
+    }
+
+    @Benchmark
+    public boolean checkWin(OpenedBoard state, BoardConfig config) {
+        return state.board.checkWin(config.mines);
+    }
+
+}
@@ -0,0 +1,160 @@
+package benchmarks;
+
+import board.Board;
+import board.CellBoard;
+import board.PackedBoard;
+import board.PaddedBoard;
+import game.Difficulty;
+import game.UpdateTracker;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.SplittableRandom;
+
+@State(Scope.Benchmark)
+public class BoardConfig {
+
+    //  The parameters shared by every board benchmark: the difficulty, and
+    //      which Board engine to use. Comparing packed with padded compares
+    //      the same byte packing with bounds-checked neighbor loops and with
+    //      the sentinel border and offset table. Difficulties are either the name of a
+    //      default difficulty or a custom board written as rowsxcolsxmines.
+    //      The custom sizes keep roughly the mine density of Intermediate,
+    //      so that the first click still opens a sizeable area.
+
+    //  Every board is populated from a SplittableRandom with the same fixed
+    //      seed, with the first click in the middle of the board and the
+    //      first-click-blank option on, so every invocation of a benchmark
+    //      works on exactly the same mine layout.
+
+    public static final long SEED = 0x5EEDL;
+
+    @Param({"beginner", "intermediate", "expert", "300x300x14000", "1000x1000x150000"})
+    public String difficulty;
+
+    @Param({"cell", "packed", "padded"})
+    public String engine;
+
+    public int rows, cols, mines;
+    public int engineType;
+
+    @Setup
+    public void parse() {
+        Difficulty diff;
+        switch (difficulty) {
+            case "beginner":
+                diff = Difficulty.BEGINNER;
+                break;
+            case "intermediate":
+                diff = Difficulty.INTERMEDIATE;
+                break;
+            case "expert":
+                diff = Difficulty.EXPERT;
+                break;
+            default:
+                String[] parts = difficulty.split("x");
+                diff = new Difficulty(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                        Integer.parseInt(parts[2]));
+        }
+        rows = diff.getRows();
+        cols = diff.getColumns();
+        mines = diff.getMines();
+        switch (engine) {
+            case "packed":
+                engineType = Board.PACKED_ENGINE;
+                break;
+            case "padded":
+                engineType = Board.PADDED_ENGINE;
+                break;
+            default:
+                engineType = Board.CELL_ENGINE;
+        }
+    }
+
+    public Board newBoard() {
+        return Board.create(engineType, rows, cols, new UpdateTracker(rows, cols));
+    }
+
+    public Board newPopulatedBoard() {
+        Board board = newBoard();
+        populate(board);
+        return board;
+    }
+
+    public void populate(Board board) {
+        board.populateBoard(rows / 2, cols / 2, mines, true, new SplittableRandom(SEED));
+    }
+
+    //  Returns a board whose mines have been placed, but whose adjacent mine
+    //      counts have not yet been computed. Calling finish() on it runs the
+    //      engine's finishPopulating, and with it addAdjacent, on its own.
+    public DeferredBoard newDeferredBoard() {
+        UpdateTracker tracker = new UpdateTracker(rows, cols);
+        DeferredBoard board;
+        if (engineType == Board.PACKED_ENGINE)
+            board = new DeferredPackedBoard(rows, cols, tracker);
+        else if (engineType == Board.PADDED_ENGINE)
+            board = new DeferredPaddedBoard(rows, cols, tracker);
+        else
+            board = new DeferredCellBoard(rows, cols, tracker);
+        populate((Board) board);
+        return board;
+    }
+
+    public interface DeferredBoard {
+        void finish();
+    }
+
+    //  The engines' finishPopulating methods are protected, so these
+    //      subclasses skip the call made by populateBoard and expose it
+    //      through finish() instead.
+    static class DeferredCellBoard extends CellBoard implements DeferredBoard {
+
+        DeferredCellBoard(int rows, int cols, UpdateTracker tracker) {
+            super(rows, cols, tracker);
+        }
+
+        @Override
+        protected void finishPopulating() {
+        }
+
+        @Override
+        public void finish() {
+            super.finishPopulating();
+        }
+    }
+
+    static class DeferredPackedBoard extends PackedBoard implements DeferredBoard {
+
+        DeferredPackedBoard(int rows, int cols, UpdateTracker tracker) {
+            super(rows, cols, tracker);
+        }
+
+        @Override
+        protected void finishPopulating() {
+        }
+
+        @Override
+        public void finish() {
+            super.finishPopulating();
+        }
+    }
+
+    static class DeferredPaddedBoard extends PaddedBoard implements DeferredBoard {
+
+        DeferredPaddedBoard(int rows, int cols, UpdateTracker tracker) {
+            super(rows, cols, tracker);
+        }
+
+        @Override
+        protected void finishPopulating() {
+        }
+
+        @Override
+        public void finish() {
+            super.finishPopulating();
+        }
+    }
+
+}
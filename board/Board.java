@@ -1,81 +1,132 @@
 package board;
 
-import game.Posn;
 import game.UpdateTracker;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntPredicate;
+import java.util.random.RandomGenerator;
 
-public class Board {
+public abstract class Board {
 
-    //  A Board has an array of Cells, and also stores the numbers of rows and
-    //      columns as fields, for use in methods. Board also has an
-    //      UpdateTracker, which keeps track of all cells that need to have
-    //      their icons updated by the GUI. The methods perform all necessary
-    //      operations on the cells in the board, and are described in detail
-    //      before their declarations.
+    //  A Board stores the state of every cell in a Minesweeper grid, along
+    //      with the numbers of rows and columns and an UpdateTracker, which
+    //      keeps track of all cells that need to have their icons updated by
+    //      the GUI. The abstract methods declared here are the complete set of
+    //      operations a Game object needs to process the game logic for each
+    //      input, and are described in detail in the implementing classes.
+
+    //  There are three implementations. CellBoard stores a 2D array of Cell
+    //      objects, and is the original, readable version of the game logic.
+    //      PackedBoard stores the entire grid in a single byte array, and is
+    //      used for large custom boards, where millions of Cell objects would
+    //      waste memory and make every neighbor scan slow. PaddedBoard stores
+    //      the same bytes surrounded by a border of sentinel cells, so that
+    //      its neighbor loops need no bounds checks. Which one a Game gets is
+    //      decided by the static create methods below.
 
     public static final int NO_CHORD = 0;
     public static final int REVEAL_CHORD = 1;
     public static final int FLAG_CHORD = 2;
 
-    private final Cell[][] board;
-    private final int nRows, nCols;
-    private final UpdateTracker updateTracker;
+    public static final int CELL_ENGINE = 0;
+    public static final int PACKED_ENGINE = 1;
+    public static final int PADDED_ENGINE = 2;
+
+    //  Boards with at least this many cells are given a PackedBoard by the
+    //      size-based create method. Every default difficulty, and any custom
+    //      board small enough to play comfortably on one screen, stays below
+    //      this value.
+    public static final int PACKED_ENGINE_THRESHOLD = 10000;
+
+    private static final int FLAG_COUNT = 0x10;
+
+    //  A layout is a finished mine layout that can be copied between boards,
+    //      stored as one byte per cell in row-major order. The low four bits
+    //      hold the number of adjacent mines, which is always 0 for mines,
+    //      and LAYOUT_MINE is set for mines. This is the same packing that
+    //      PackedBoard uses for its cells.
+    public static final int LAYOUT_ADJACENT_MASK = 0x0F;
+    public static final int LAYOUT_MINE = 0x10;
+
+    //  The cell states returned by getCellStates add these bits to each
+    //      cell's layout bits, again packed the same way as in PackedBoard.
+    public static final int STATE_REVEALED = 0x20;
+    public static final int STATE_FLAGGED = 0x40;
+    public static final int STATE_QUESTION_MARKED = 0x80;
+
+    protected final int nRows, nCols;
+    protected final UpdateTracker updateTracker;
+
+    //  Explicit stack of flat cell indexes (row*nCols + col) used by both
+    //      engines' chainClickCells flood fill in place of recursion. It is
+    //      kept between calls and only grows, so a chain click allocates
+    //      nothing once the stack has reached the size of the largest
+    //      opening seen so far.
+    private int[] floodStack;
+    private int floodSize;
 
-    public Board(int rows, int cols, UpdateTracker tracker) {
-        board = new Cell[rows][cols];
+    //  Running counts kept up to date by both engines as cells are revealed
+    //      and flagged, so that checking for a win never has to scan the
+    //      board. hiddenUnflagged is the number of cells that are neither
+    //      revealed nor flagged, and correctFlags is the number of flagged
+    //      cells that really are mines.
+    private int hiddenUnflagged;
+    private int correctFlags;
+
+    //  The number of flagged cells and the number of hidden, unflagged cells
+    //      in the 3x3 area around every cell, the cell itself included,
+    //      packed into one byte per cell with the flags in the high four
+    //      bits. They are kept up to date as cells are revealed and flagged,
+    //      so that checking a chord reads one byte instead of scanning the
+    //      neighbors twice. Question marked cells count as hidden, as they
+    //      behave exactly like blank hidden cells.
+    private final byte[] neighborCounts;
+
+    //  Every opening of the board, labeled once the mines are placed, so that
+    //      the engines can reveal an opening from a list instead of a flood
+    //      fill. null until the board is populated.
+    Openings openings;
+
+    protected Board(int rows, int cols, UpdateTracker tracker) {
         nRows = rows;
         nCols = cols;
         updateTracker = tracker;
+        floodStack = new int[64];
+        floodSize = 0;
+        hiddenUnflagged = rows * cols;
+        correctFlags = 0;
+        neighborCounts = new byte[rows * cols];
+        for (int row=0; row<rows; row++)
+            for (int col=0; col<cols; col++) {
+                int rowsAround = Math.min(row+1, rows-1) - Math.max(row-1, 0) + 1;
+                int colsAround = Math.min(col+1, cols-1) - Math.max(col-1, 0) + 1;
+                neighborCounts[row*cols + col] = (byte) (rowsAround * colsAround);
+            }
     }
 
-    //  Takes a number of mines, an option flag boolean, and the location of
-    //      the first click. After this method completes execution, every spot
-    //      on the board will contain a Cell object, either a MineCell or an
-    //      EmptyCell. The cells will be fully initialized and ready for play.
-    //      It is called upon the player's first click -- this is done in order
-    //      to ensure that the first click is not on a mine. If the boolean
-    //      argument firstAlwaysBlank is true, the first click will also not be
-    //      adjacent to any mines. This method uses the rowPos and colPos
-    //      arguments to avoid placing mines on and/or adjacent to the
-    //      first-clicked cell.
-    public void populateBoard(int rowPos, int colPos, int totalMines, boolean firstAlwaysBlank) {
-        int currentMines = 0;
-        while (currentMines < totalMines) {
-            int randomRow = (int)(Math.random()*nRows);
-            int randomCol = (int)(Math.random()*nCols);
-            if (board[randomRow][randomCol] == null &&
-                    validMineLocation(rowPos, colPos, randomRow, randomCol, firstAlwaysBlank)) {
-                board[randomRow][randomCol] = new MineCell();
-                currentMines++;
-            }
-        }
-        for (int row=0; row<nRows; row++)
-            for (int col=0; col<nCols; col++)
-                if (board[row][col] == null)
-                    board[row][col] = new EmptyCell();
-        addAdjacent();
+    //  Creates a Board using the engine best suited to the given board size.
+    public static Board create(int rows, int cols, UpdateTracker tracker) {
+        if ((long) rows * cols >= PACKED_ENGINE_THRESHOLD)
+            return create(PACKED_ENGINE, rows, cols, tracker);
+        return create(CELL_ENGINE, rows, cols, tracker);
+    }
+
+    //  Creates a Board using the engine described by the given constant.
+    public static Board create(int engine, int rows, int cols, UpdateTracker tracker) {
+        if (engine == PACKED_ENGINE)
+            return new PackedBoard(rows, cols, tracker);
+        if (engine == PADDED_ENGINE)
+            return new PaddedBoard(rows, cols, tracker);
+        return new CellBoard(rows, cols, tracker);
     }
 
-    // Returns true if the provided mine location is a valid mine placement
-    //      based on the first-clicked cell location and boolean flag
-    private boolean validMineLocation(int cellR, int cellC, int mineR, int mineC, boolean firstAlwaysBlank) {
-        if (firstAlwaysBlank)
-            return (!(mineR>=cellR-1 && mineR<=cellR+1 && mineC>=cellC-1 && mineC<=cellC+1));
-        else
-            return (cellR != mineR && cellC != mineC);
+    public int getRows() {
+        return nRows;
     }
 
-    //  This method is called immediately after initially populating the board
-    //      with Cell objects. It iterates through the board, and upon finding
-    //      a MineCell object, iterates through the 3x3 area surrounding the
-    //      mine, incrementing any adjacent EmptyCells' minesAdjacent field.
-    private void addAdjacent() {
-        for (int row=0; row<nRows; row++)
-            for (int col=0; col<nCols; col++)
-                if (board[row][col].isMine())
-                    for (int i=row-1; i<=row+1; i++)
-                        for (int j=col-1; j<=col+1; j++)
-                            if (isValidCell(i, j))
-                                board[i][j].incMinesAdjacent();
+    public int getColumns() {
+        return nCols;
     }
 
     //  Takes row and column indexes and returns a boolean describing whether
@@ -83,225 +134,223 @@ public class Board {
     //      false if the indexes are out of bounds, and true otherwise. This
     //      method was written to simplify if statements that include an index
     //      bounds check.
-    private boolean isValidCell(int row, int col) {
+    protected boolean isValidCell(int row, int col) {
         return (row>=0 && col>=0 && row<nRows && col<nCols);
     }
 
-    // Used to check a win condition in Game. If a call to this method returns
-    //      true, and the correct number of flags have been placed, the game
-    //      is won.
-    public boolean checkWin(int minesMinusFlags) {
-        int unrevealed = 0;
-        for (Cell[] row : board)
-            for(Cell c : row)
-                if (!c.isFlagged() && !c.isRevealed())
-                    if (++unrevealed > minesMinusFlags)
-                        return false;
-        return true;
+    //  Push, pop, and emptiness check for the flood fill stack. floodPush
+    //      doubles the stack's capacity when it is full.
+    protected void floodPush(int index) {
+        if (floodSize == floodStack.length)
+            floodStack = Arrays.copyOf(floodStack, floodSize * 2);
+        floodStack[floodSize++] = index;
     }
 
-    //  Returns the number of flagged cells adjacent to a given cell.
-    //      This method is used when chord clicking, to determine whether
-    //      adjacent unflagged cells should be revealed. If the number of
-    //      adjacent flagged cells equals the number shown on the revealed
-    //      cell, the adjacent cells will be clicked.
-    private int getFlagsAdjacent(int row, int col) {
-        int totalFlagged = 0;
-        for (int i=row-1; i<=row+1; i++)
-            for (int j=col-1; j<=col+1; j++) {
-                if (isValidCell(i, j) && board[i][j].isFlagged())
-                    totalFlagged++;}
-        return totalFlagged;
+    protected int floodPop() {
+        return floodStack[--floodSize];
     }
 
-    // Returns the number of unrevealed unflagged cells adjacent to a given
-    //      cell, including question marked cells. Used when flagging using
-    //      chord-clicking is enabled. if the total number of unrevealed cells
-    //      adjacent to the given revealed cell is equal to the number shown on
-    //      the cell, the remaining unflagged unrevealed cells will be flagged.
-    private int getUnrevealedUnflaggedAdjacent(int row, int col) {
-        int totalUnrevealedUnflagged = 0;
-        for (int i=row-1; i<=row+1; i++)
-            for (int j=col-1; j<=col+1; j++) {
-                if (isValidCell(i, j) && !board[i][j].isRevealed() && !board[i][j].isFlagged())
-                    totalUnrevealedUnflagged++;}
-        return totalUnrevealedUnflagged;
+    protected boolean floodEmpty() {
+        return floodSize == 0;
     }
 
-    // Checks whether a valid chord click can be performed on the cell at the
-    //      given row/col position.
-    public int checkChord(int row, int col) {
-        if (!board[row][col].isRevealed())
-            return NO_CHORD;
-        int flags = getFlagsAdjacent(row, col);
-        if (((EmptyCell)board[row][col]).getMinesAdjacent() == getUnrevealedUnflaggedAdjacent(row, col) + flags)
-            return FLAG_CHORD;
-        if (((EmptyCell)board[row][col]).getMinesAdjacent() == flags)
-            return REVEAL_CHORD;
-        return NO_CHORD;
+    //  Called by the engines with the flat index of every hidden, unflagged
+    //      cell that is revealed.
+    protected void cellRevealed(int index) {
+        hiddenUnflagged--;
+        adjustNeighborCounts(index, -1);
     }
 
-    //  Toggles the isFlagged field of the given cell, and returns a value
-    //      describing whether the value was toggled off, toggled on, or
-    //      not changed.
-    public int rightClickCell(int row, int col, boolean marksEnabled) {
-        int status = board[row][col].toggleFlagged(marksEnabled);
-        if (status != Cell.FLAG_UNCHANGED)
-            updateTracker.addUpdate(new Posn(row, col));
-        return status;
+    //  Called by the engines with the result of every flag toggle, along with
+    //      the toggled cell's flat index and whether it is a mine.
+    protected void flagToggled(int index, int status, boolean isMine) {
+        if (status == Cell.FLAG_SET) {
+            hiddenUnflagged--;
+            if (isMine)
+                correctFlags++;
+            adjustNeighborCounts(index, FLAG_COUNT - 1);
+            openings.flagChanged(index, true);
+        } else if (status == Cell.FLAG_CLEARED) {
+            hiddenUnflagged++;
+            if (isMine)
+                correctFlags--;
+            adjustNeighborCounts(index, 1 - FLAG_COUNT);
+            openings.flagChanged(index, false);
+        }
     }
 
-    //  Clicks the given cell, and returns a boolean describing whether a mine
-    //      was clicked. If the player clicks a non-revealed cell with no
-    //      adjacent mines, all adjacent cells are recursively clicked until
-    //      the revealed area is bordered entirely by cells adjacent to mines,
-    //      or by the edge of the board. If chord-clicking with left click is
-    //      enabled and the cell is a valid chord click position, a call to
-    //      chordClickCell() reveals all adjacent unflagged, unrevealed
-    //      cells. If the player has placed adjacent flags incorrectly and
-    //      this operation results in a mine being clicked, leftClickCell
-    //      returns true and the game is lost.
-    public boolean leftClickCell(int row, int col) {
-        if (board[row][col].isRevealed() || board[row][col].isFlagged())
-            return false;
-        if (board[row][col].clickCell()) {
-            updateTracker.addUpdate(new Posn(row, col));
-            return true;
-        }
-        int minesAdjacent = ((EmptyCell)board[row][col]).getMinesAdjacent();
-        if (minesAdjacent == 0) {
-            chainClickCells(row, col);
-            return false;
-        }
-        updateTracker.addUpdate(new Posn(row, col));
-        return false;
+    //  Adds the given amount to the packed counts of every cell in the 3x3
+    //      area around the cell at the given flat index.
+    private void adjustNeighborCounts(int index, int amount) {
+        int row = index / nCols;
+        int col = index % nCols;
+        for (int i=Math.max(row-1, 0); i<=Math.min(row+1, nRows-1); i++)
+            for (int j=Math.max(col-1, 0); j<=Math.min(col+1, nCols-1); j++)
+                neighborCounts[i*nCols + j] += amount;
     }
 
-    // Reveals the cell specified by the given row and col indexes, and if the
-    //      given cell is not adjacent to any mines, recursively calls itself
-    //      for all unrevealed cells adjacent to the cell.
-    private void chainClickCells(int row, int col) {
-        if (board[row][col].isFlagged())
-            return;
-        board[row][col].clickCell();
-        updateTracker.addUpdate(new Posn(row, col));
-        int minesAdjacent = ((EmptyCell)board[row][col]).getMinesAdjacent();
-        if (minesAdjacent == 0)
-            for (int i=row-1; i<=row+1; i++)
-                for (int j=col-1; j<=col+1; j++)
-                    if (isValidCell(i, j) && !board[i][j].isRevealed())
-                        chainClickCells(i, j);
+    //  Returns the number of flagged cells around the given cell.
+    public int getFlagsAdjacent(int row, int col) {
+        return (neighborCounts[row*nCols + col] & 0xF0) >> 4;
     }
 
-    //  This method is used to reveal all non-revealed non-flagged cells
-    //      adjacent to a cell with a number of adjacent flags equal to its
-    //      number of adjacent mines. If a mine is clicked in this process, the
-    //      method returns true, indicating that the game is over. If a mine is
-    //      not clicked, the method returns false.
-    public boolean chordClickLeft(int row, int col) {
-        boolean clickedMine = false;
-        for (int i = row - 1; i <= row + 1; i++)
-            for (int j = col - 1; j <= col + 1; j++)
-                if (isValidCell(i, j)) {
-                    if (clickedMine && board[i][j].isMine())
-                        continue;
-                    clickedMine = (board[i][j].clickCell() || clickedMine);
-                    if (!board[i][j].isMine() && ((EmptyCell) board[i][j]).getMinesAdjacent() == 0)
-                        chainClickCells(i, j);
-                    else
-                        updateTracker.addUpdate(new Posn(i, j));
-                }
-        return clickedMine;
+    //  Returns the number of hidden, unflagged cells around the given cell,
+    //      including question marked cells.
+    public int getHiddenAdjacent(int row, int col) {
+        return neighborCounts[row*nCols + col] & 0x0F;
     }
 
-    // This method flags all unrevealed cells adjacent to the cell at the given
-    //      position. It returns the number of cells newly-flagged in this
-    //      process as an integer.
-    public int chordClickRight(int row, int col) {
-        int count = 0;
-        for (int i = row - 1; i <= row + 1; i++)
-            for (int j = col - 1; j <= col + 1; j++)
-                if (isValidCell(i, j) && (board[i][j].getViewState() == Cell.UNREVEALED ||
-                        board[i][j].getViewState() == Cell.QUESTION_MARKED)) {
-                    board[i][j].clearQuestionMark();
-                    rightClickCell(i, j, false);
-                    count++;
-                }
-        return count;
+    //  Called by the engines once the board is populated, with a test for
+    //      whether the cell at a flat index is blank, meaning neither a mine
+    //      nor adjacent to one.
+    void labelOpenings(IntPredicate isBlank) {
+        openings = new Openings(nRows, nCols, isBlank);
+    }
+
+    //  Returns the number of openings on the board, or 0 if it has not been
+    //      populated yet.
+    public int getOpenings() {
+        return (openings == null) ? 0 : openings.getCount();
+    }
+
+    // Used to check a win condition in Game. If a call to this method returns
+    //      true, and the correct number of flags have been placed, the game
+    //      is won. The board is won once no more cells are left hidden and
+    //      unflagged than there are mines left unflagged, as every one of
+    //      those cells must then be a mine. This used to be a scan of the
+    //      whole board after every click, and is now a single comparison
+    //      against the running count.
+    public boolean checkWin(int minesMinusFlags) {
+        return hiddenUnflagged <= minesMinusFlags;
+    }
+
+    public int getHiddenUnflagged() {
+        return hiddenUnflagged;
+    }
+
+    public int getCorrectFlags() {
+        return correctFlags;
     }
 
-    //  Used by the GUI to determine which image to display for the cell at the
-    //      given coordinates.
-    public int getViewState(int row, int col) {
-        if (board[row][col] == null)
-            return Cell.UNREVEALED;
-        return board[row][col].getViewState();
+    //  Takes a number of mines, an option flag boolean, and the location of
+    //      the first click, and places the mines on the board through calls to
+    //      placeMine, after which finishPopulating completes the board for
+    //      play. It is called upon the player's first click -- this is done in
+    //      order to ensure that the first click is not on a mine. If the
+    //      boolean argument firstAlwaysBlank is true, the first click will
+    //      also not be adjacent to any mines. This method uses the rowPos and
+    //      colPos arguments to avoid placing mines on and/or adjacent to the
+    //      first-clicked cell. A game started with a right click passes an
+    //      off-board position, so no cells are avoided.
+    //  Mines used to be placed by throwing random coordinates at the board
+    //      until enough of them landed on valid empty cells, which took
+    //      millions of retries on dense custom boards. Instead, the cells that
+    //      may hold a mine are numbered 0 to permitted-1 in row-major order,
+    //      skipping the excluded cells around the first click, and the first
+    //      totalMines entries of a partial Fisher-Yates shuffle of those
+    //      numbers are chosen. Each step of the shuffle picks a distinct cell,
+    //      so placement takes exactly totalMines steps at any density. The
+    //      shuffle array stores each number plus one, so that the zeroes of a
+    //      freshly-allocated array stand for "not yet swapped" and it never
+    //      needs to be filled. Asking for more mines than there are permitted
+    //      cells throws an IllegalArgumentException.
+    public void populateBoard(int rowPos, int colPos, int totalMines, boolean firstAlwaysBlank) {
+        populateBoard(rowPos, colPos, totalMines, firstAlwaysBlank, ThreadLocalRandom.current());
     }
 
-    //  Used for debugging and model/controller testing before development
-    //      of the GUI. Will be left in for documentation purposes.
-    public String toString() {
-        StringBuilder output = new StringBuilder("     ");
-        for (int i=0; i<nCols; i++)
-            output.append(i / 10).append(" ");
-        output.append("\n     ");
-        for (int i=0; i<nCols; i++)
-            output.append(i % 10).append(" ");
-        output.append("\n\n");
-        for (int i=0; i<nRows; i++) {
-            String rowNumString;
-            if (i >= 10)
-                rowNumString = i + "   ";
-            else
-                rowNumString = " " + i + "   ";
-            output.append(rowNumString);
-            for (int j = 0; j < nCols; j++)
-                if (board[i][j] == null)
-                    output.append("- ");
-                else
-                    output.append(board[i][j].toString()).append(" ");
-            output.append("\n");
+    //  Same as above, drawing every random number from the given generator.
+    //      Two boards populated with the same arguments from generators in
+    //      the same state have identical mine layouts, which is what makes
+    //      seeded games reproducible.
+    public void populateBoard(int rowPos, int colPos, int totalMines, boolean firstAlwaysBlank,
+                              RandomGenerator random) {
+        int[] excluded = getExcludedCells(rowPos, colPos, firstAlwaysBlank);
+        int permitted = nRows*nCols - excluded.length;
+        if (totalMines > permitted)
+            throw new IllegalArgumentException(totalMines + " mines do not fit in the " + permitted +
+                    " cells permitted to hold one");
+        int[] shuffle = new int[permitted];
+        for (int i=0; i<totalMines; i++) {
+            int j = i + random.nextInt(permitted - i);
+            int chosen = (shuffle[j] == 0) ? j : shuffle[j] - 1;
+            shuffle[j] = (shuffle[i] == 0) ? i + 1 : shuffle[i];
+            placeMine(permittedToIndex(chosen, excluded));
         }
-        return output.toString();
+        finishPopulating();
     }
 
-    //  Sets all mines and falsely-flagged cells to be revealed. This is used
-    //      when a mine is clicked, and the mines are shown to the player upon
-    //      game over.
-    public void setRevealed() {
-        for (int i=0; i<nRows; i++)
-            for (int j=0; j<nCols; j++) {
-                if (board[i][j].isMine() || board[i][j].isFlagged()) {
-                    board[i][j].setRevealed();
-                    updateTracker.addUpdate(new Posn(i, j));
-                }
-            }
+    //  Returns the flat indexes of the cells that may not hold a mine, in
+    //      ascending order. When firstAlwaysBlank is set, these are all cells
+    //      on the board in the 3x3 area around the first click. Otherwise, it
+    //      is only the first-clicked cell itself, if it is on the board.
+    private int[] getExcludedCells(int rowPos, int colPos, boolean firstAlwaysBlank) {
+        int[] excluded = new int[9];
+        int count = 0;
+        int reach = firstAlwaysBlank ? 1 : 0;
+        for (int i=rowPos-reach; i<=rowPos+reach; i++)
+            for (int j=colPos-reach; j<=colPos+reach; j++)
+                if (isValidCell(i, j))
+                    excluded[count++] = i*nCols + j;
+        return Arrays.copyOf(excluded, count);
     }
 
-    // Turns all question-marked cells into normal unrevealed cells. This is
-    //      done when question marks are disabled while a game is in progress
-    //      and there are already question marks on the board.
-    public void clearQuestionMarks() {
-        for (int i=0; i<nRows; i++)
-            for (int j=0; j<nCols; j++)
-                if (board[i][j].isQuestionMarked()) {
-                    board[i][j].clearQuestionMark();
-                    updateTracker.addUpdate(new Posn(i, j));
-                }
+    //  Maps a number in the range used by populateBoard to the flat index of
+    //      the cell it represents, by stepping over every excluded cell at or
+    //      before it.
+    private int permittedToIndex(int number, int[] excluded) {
+        int index = number;
+        for (int cell : excluded) {
+            if (cell > index)
+                break;
+            index++;
+        }
+        return index;
     }
 
-    // Flags all remaining unrevealed (or question-marked) cells on the board.
-    //      Used when the auto-flag option is set and the game is nearly won.
-    //      A call to this method flags all remaining cells (that are confirmed
-    //      beforehand to be mines), and the game ends in a win.
-    public void flagAllUnrevealed() {
-        for (int i=0; i<nRows; i++)
-            for (int j=0; j<nCols; j++)
-                if (!(board[i][j].isFlagged() || board[i][j].isRevealed())) {
-                    board[i][j].clearQuestionMark();
-                    board[i][j].toggleFlagged(false);
-                    updateTracker.addUpdate(new Posn(i, j));
-                }
+    //  Populates the board with mines at exactly the given flat indexes, as
+    //      when a game is restored from a snapshot.
+    public void populateBoard(BitSet mines) {
+        for (int index=mines.nextSetBit(0); index>=0; index=mines.nextSetBit(index + 1))
+            placeMine(index);
+        finishPopulating();
     }
 
+    //  Populates the board from a layout taken from another board, which may
+    //      since have been reflected, instead of placing mines at random. The
+    //      adjacent mine counts are already in the layout, so nothing needs
+    //      to be counted.
+    public abstract void populateBoard(byte[] layout);
+
+    //  Returns the layout of a populated board.
+    public abstract byte[] getLayout();
+
+    //  Returns the layout of a populated board together with the state of
+    //      every cell, one byte per cell in row-major order.
+    public abstract byte[] getCellStates();
+
+    //  Marks the cell at the given flat index as a mine.
+    protected abstract void placeMine(int index);
+
+    //  Called once all mines are placed, to count each cell's adjacent mines
+    //      and leave the board ready for play.
+    protected abstract void finishPopulating();
+
+    public abstract int checkChord(int row, int col);
+
+    public abstract int rightClickCell(int row, int col, boolean marksEnabled);
+
+    public abstract boolean leftClickCell(int row, int col);
+
+    public abstract boolean chordClickLeft(int row, int col);
+
+    public abstract int chordClickRight(int row, int col);
+
+    public abstract int getViewState(int row, int col);
+
+    public abstract void setRevealed();
+
+    public abstract void clearQuestionMarks();
+
+    public abstract void flagAllUnrevealed();
+
 }
@@ -0,0 +1,114 @@
+package board;
+
+import java.util.Arrays;
+
+public final class BoardMetrics {
+
+    //  BoardMetrics describes how much work a populated board takes to clear,
+    //      independently of how the player happens to clear it. The main
+    //      figure is the 3BV (Bechtel's Board Benchmark Value): the least
+    //      number of left clicks that reveals every safe cell. Every opening
+    //      takes one click, which also reveals the numbers bordering it, and
+    //      every number that borders no opening takes one click of its own.
+    //      Dividing the 3BV by the time a game took gives 3BV/s, a speed
+    //      that can be compared between boards, unlike the raw time.
+
+    //  Islands are the groups of numbers bordering no opening, counting
+    //      numbers as grouped if they touch, diagonally included. Each one is
+    //      an area the player has to reach without the help of an opening.
+
+    private final int threeBV;
+    private final int openings;
+    private final int islands;
+
+    private BoardMetrics(int threeBV, int openings, int islands) {
+        this.threeBV = threeBV;
+        this.openings = openings;
+        this.islands = islands;
+    }
+
+    //  Measures a populated board. The openings are already labeled by the
+    //      board itself, so only the numbers bordering no opening have to be
+    //      found and grouped.
+    public static BoardMetrics measure(Board board) {
+        int rows = board.getRows();
+        int cols = board.getColumns();
+        byte[] layout = board.getLayout();
+        boolean[] lone = new boolean[layout.length];
+        int loneNumbers = 0;
+        for (int row=0; row<rows; row++)
+            for (int col=0; col<cols; col++) {
+                int index = row*cols + col;
+                if ((layout[index] & Board.LAYOUT_MINE) != 0 || layout[index] == 0)
+                    continue;
+                boolean bordersOpening = false;
+                for (int i=Math.max(row-1, 0); i<=Math.min(row+1, rows-1) && !bordersOpening; i++)
+                    for (int j=Math.max(col-1, 0); j<=Math.min(col+1, cols-1); j++)
+                        if (layout[i*cols + j] == 0) {
+                            bordersOpening = true;
+                            break;
+                        }
+                if (!bordersOpening) {
+                    lone[index] = true;
+                    loneNumbers++;
+                }
+            }
+        return new BoardMetrics(board.getOpenings() + loneNumbers, board.getOpenings(),
+                countIslands(lone, rows, cols));
+    }
+
+    //  Counts the groups of touching cells marked in lone, clearing the marks
+    //      as each group is walked.
+    private static int countIslands(boolean[] lone, int rows, int cols) {
+        int[] stack = new int[16];
+        int islands = 0;
+        for (int start=0; start<lone.length; start++) {
+            if (!lone[start])
+                continue;
+            islands++;
+            lone[start] = false;
+            int size = 0;
+            stack[size++] = start;
+            while (size > 0) {
+                int index = stack[--size];
+                int row = index / cols;
+                int col = index % cols;
+                for (int i=Math.max(row-1, 0); i<=Math.min(row+1, rows-1); i++)
+                    for (int j=Math.max(col-1, 0); j<=Math.min(col+1, cols-1); j++) {
+                        int neighbor = i*cols + j;
+                        if (!lone[neighbor])
+                            continue;
+                        lone[neighbor] = false;
+                        if (size == stack.length)
+                            stack = Arrays.copyOf(stack, size * 2);
+                        stack[size++] = neighbor;
+                    }
+            }
+        }
+        return islands;
+    }
+
+    public int getThreeBV() {
+        return threeBV;
+    }
+
+    public int getOpenings() {
+        return openings;
+    }
+
+    public int getIslands() {
+        return islands;
+    }
+
+    //  Returns the 3BV/s of a game on this board that took the given number
+    //      of seconds, or 0 if no time has passed.
+    public double getThreeBVPerSecond(double seconds) {
+        return (seconds <= 0) ? 0 : threeBV / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return "3BV " + threeBV + ", " + openings + " openings, " + islands + " islands";
+    }
+
+}
@@ -0,0 +1,338 @@
+package board;
+
+import game.UpdateTracker;
+
+public class CellBoard extends Board {
+
+    //  A CellBoard has an array of Cells, and uses the numbers of rows and
+    //      columns and the UpdateTracker inherited from Board. The methods
+    //      perform all necessary operations on the cells in the board, and
+    //      are described in detail before their declarations.
+
+    private final Cell[][] board;
+
+    public CellBoard(int rows, int cols, UpdateTracker tracker) {
+        super(rows, cols, tracker);
+        board = new Cell[rows][cols];
+    }
+
+    //  Mine placement itself is done in Board's populateBoard, which calls
+    //      placeMine once for each chosen location, then finishPopulating.
+    //      After finishPopulating completes execution, every spot on the board
+    //      will contain a Cell object, either a MineCell or an EmptyCell. The
+    //      cells will be fully initialized and ready for play.
+    @Override
+    protected void placeMine(int index) {
+        board[index / nCols][index % nCols] = new MineCell();
+    }
+
+    //  Before finishPopulating runs, the only cells on the board are the
+    //      MineCells, so the mines are copied into a MineBitmap, which counts
+    //      every cell's adjacent mines, and each EmptyCell is created with
+    //      its count already known.
+    @Override
+    protected void finishPopulating() {
+        MineBitmap bitmap = new MineBitmap(nRows, nCols);
+        for (int row=0; row<nRows; row++)
+            for (int col=0; col<nCols; col++)
+                if (board[row][col] != null)
+                    bitmap.setMine(row, col);
+        byte[] counts = new byte[nRows * nCols];
+        bitmap.addCounts(counts, 0, nCols);
+        for (int row=0; row<nRows; row++)
+            for (int col=0; col<nCols; col++)
+                if (board[row][col] == null)
+                    board[row][col] = new EmptyCell(counts[row*nCols + col]);
+        labelOpenings(this::isBlank);
+    }
+
+    private boolean isBlank(int index) {
+        Cell cell = board[index / nCols][index % nCols];
+        return !cell.isMine() && ((EmptyCell)cell).getMinesAdjacent() == 0;
+    }
+
+    @Override
+    public void populateBoard(byte[] layout) {
+        for (int row=0; row<nRows; row++)
+            for (int col=0; col<nCols; col++) {
+                int cell = layout[row*nCols + col];
+                if ((cell & LAYOUT_MINE) != 0)
+                    board[row][col] = new MineCell();
+                else
+                    board[row][col] = new EmptyCell(cell & LAYOUT_ADJACENT_MASK);
+            }
+        labelOpenings(this::isBlank);
+    }
+
+    @Override
+    public byte[] getLayout() {
+        byte[] layout = new byte[nRows * nCols];
+        for (int row=0; row<nRows; row++)
+            for (int col=0; col<nCols; col++) {
+                if (board[row][col].isMine())
+                    layout[row*nCols + col] = LAYOUT_MINE;
+                else
+                    layout[row*nCols + col] = (byte) ((EmptyCell)board[row][col]).getMinesAdjacent();
+            }
+        return layout;
+    }
+
+    @Override
+    public byte[] getCellStates() {
+        byte[] states = getLayout();
+        for (int row=0; row<nRows; row++)
+            for (int col=0; col<nCols; col++) {
+                Cell cell = board[row][col];
+                int state = 0;
+                if (cell.isRevealed())
+                    state |= STATE_REVEALED;
+                if (cell.isFlagged())
+                    state |= STATE_FLAGGED;
+                if (cell.isQuestionMarked())
+                    state |= STATE_QUESTION_MARKED;
+                states[row*nCols + col] |= (byte) state;
+            }
+        return states;
+    }
+
+    // Checks whether a valid chord click can be performed on the cell at the
+    //      given row/col position. If the number of hidden cells around the
+    //      revealed cell plus the flags around it equals its number, the
+    //      hidden cells must all be mines and may be flagged. Otherwise, if
+    //      the flags alone equal its number, the hidden cells may be
+    //      revealed. Both counts are kept up to date by Board, so no
+    //      neighbors are scanned.
+    @Override
+    public int checkChord(int row, int col) {
+        if (!board[row][col].isRevealed())
+            return NO_CHORD;
+        int flags = getFlagsAdjacent(row, col);
+        if (((EmptyCell)board[row][col]).getMinesAdjacent() == getHiddenAdjacent(row, col) + flags)
+            return FLAG_CHORD;
+        if (((EmptyCell)board[row][col]).getMinesAdjacent() == flags)
+            return REVEAL_CHORD;
+        return NO_CHORD;
+    }
+
+    //  Clicks the Cell at the given position, and tells Board when this
+    //      reveals a previously hidden cell, so that the running counts used
+    //      by checkWin stay correct.
+    private boolean clickCell(int row, int col) {
+        boolean wasRevealed = board[row][col].isRevealed();
+        boolean clickedMine = board[row][col].clickCell();
+        if (!wasRevealed && board[row][col].isRevealed())
+            cellRevealed(row*nCols + col);
+        return clickedMine;
+    }
+
+    //  Toggles the isFlagged field of the given cell, and returns a value
+    //      describing whether the value was toggled off, toggled on, or
+    //      not changed.
+    @Override
+    public int rightClickCell(int row, int col, boolean marksEnabled) {
+        int status = board[row][col].toggleFlagged(marksEnabled);
+        flagToggled(row*nCols + col, status, board[row][col].isMine());
+        if (status != Cell.FLAG_UNCHANGED)
+            updateTracker.addUpdate(row, col);
+        return status;
+    }
+
+    //  Clicks the given cell, and returns a boolean describing whether a mine
+    //      was clicked. If the player clicks a non-revealed cell with no
+    //      adjacent mines, all adjacent cells are repeatedly clicked until
+    //      the revealed area is bordered entirely by cells adjacent to mines,
+    //      or by the edge of the board. If chord-clicking with left click is
+    //      enabled and the cell is a valid chord click position, a call to
+    //      chordClickCell() reveals all adjacent unflagged, unrevealed
+    //      cells. If the player has placed adjacent flags incorrectly and
+    //      this operation results in a mine being clicked, leftClickCell
+    //      returns true and the game is lost.
+    @Override
+    public boolean leftClickCell(int row, int col) {
+        if (board[row][col].isRevealed() || board[row][col].isFlagged())
+            return false;
+        if (clickCell(row, col)) {
+            updateTracker.addUpdate(row, col);
+            return true;
+        }
+        int minesAdjacent = ((EmptyCell)board[row][col]).getMinesAdjacent();
+        if (minesAdjacent == 0) {
+            chainClickCells(row, col);
+            return false;
+        }
+        updateTracker.addUpdate(row, col);
+        return false;
+    }
+
+    // Reveals the cell specified by the given row and col indexes, and if the
+    //      given cell is not adjacent to any mines, reveals all unrevealed,
+    //      unflagged cells adjacent to it, repeating the process for every
+    //      newly-revealed cell that is also not adjacent to any mines. This
+    //      was originally written recursively, which overflowed the call stack
+    //      on large, sparse boards. Instead, revealed blank cells whose
+    //      neighbors have not been visited yet are kept on the explicit stack
+    //      inherited from Board, as flat row*nCols + col indexes. A cell is
+    //      revealed before it is pushed, so it can never be pushed twice, and
+    //      the set of revealed cells is the same as the recursive version's.
+    //  The first click on a blank cell of an untouched opening skips the
+    //      flood fill, and reveals the opening straight from the list of its
+    //      cells made when the board was populated. See Openings for when
+    //      the list can be used.
+    private void chainClickCells(int row, int col) {
+        if (board[row][col].isFlagged())
+            return;
+        clickCell(row, col);
+        updateTracker.addUpdate(row, col);
+        if (((EmptyCell)board[row][col]).getMinesAdjacent() != 0)
+            return;
+        int label = openings.getLabel(row*nCols + col);
+        if (openings.open(label)) {
+            for (int i=openings.getStart(label); i<openings.getEnd(label); i++) {
+                int index = openings.getCell(i);
+                Cell cell = board[index / nCols][index % nCols];
+                if (cell.isRevealed() || cell.isFlagged())
+                    continue;
+                clickCell(index / nCols, index % nCols);
+                updateTracker.markDirty(index);
+            }
+            return;
+        }
+        floodPush(row*nCols + col);
+        while (!floodEmpty()) {
+            int current = floodPop();
+            int r = current / nCols;
+            int c = current % nCols;
+            for (int i=r-1; i<=r+1; i++)
+                for (int j=c-1; j<=c+1; j++) {
+                    if (!isValidCell(i, j) || board[i][j].isRevealed() || board[i][j].isFlagged())
+                        continue;
+                    clickCell(i, j);
+                    updateTracker.addUpdate(i, j);
+                    if (((EmptyCell)board[i][j]).getMinesAdjacent() == 0)
+                        floodPush(i*nCols + j);
+                }
+        }
+    }
+
+    //  This method is used to reveal all non-revealed non-flagged cells
+    //      adjacent to a cell with a number of adjacent flags equal to its
+    //      number of adjacent mines. If a mine is clicked in this process, the
+    //      method returns true, indicating that the game is over. If a mine is
+    //      not clicked, the method returns false. The chorded cell itself is
+    //      already revealed, so only its eight neighbors are visited.
+    @Override
+    public boolean chordClickLeft(int row, int col) {
+        boolean clickedMine = false;
+        for (int i = row - 1; i <= row + 1; i++)
+            for (int j = col - 1; j <= col + 1; j++)
+                if (isValidCell(i, j) && (i != row || j != col)) {
+                    if (clickedMine && board[i][j].isMine())
+                        continue;
+                    clickedMine = (clickCell(i, j) || clickedMine);
+                    if (!board[i][j].isMine() && ((EmptyCell) board[i][j]).getMinesAdjacent() == 0)
+                        chainClickCells(i, j);
+                    else
+                        updateTracker.addUpdate(i, j);
+                }
+        return clickedMine;
+    }
+
+    // This method flags all unrevealed cells adjacent to the cell at the given
+    //      position. It returns the number of cells newly-flagged in this
+    //      process as an integer.
+    @Override
+    public int chordClickRight(int row, int col) {
+        int count = 0;
+        for (int i = row - 1; i <= row + 1; i++)
+            for (int j = col - 1; j <= col + 1; j++)
+                if (isValidCell(i, j) && (board[i][j].getViewState() == Cell.UNREVEALED ||
+                        board[i][j].getViewState() == Cell.QUESTION_MARKED)) {
+                    board[i][j].clearQuestionMark();
+                    rightClickCell(i, j, false);
+                    count++;
+                }
+        return count;
+    }
+
+    //  Used by the GUI to determine which image to display for the cell at the
+    //      given coordinates.
+    @Override
+    public int getViewState(int row, int col) {
+        if (board[row][col] == null)
+            return Cell.UNREVEALED;
+        return board[row][col].getViewState();
+    }
+
+    //  Used for debugging and model/controller testing before development
+    //      of the GUI. Will be left in for documentation purposes.
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder("     ");
+        for (int i=0; i<nCols; i++)
+            output.append(i / 10).append(" ");
+        output.append("\n     ");
+        for (int i=0; i<nCols; i++)
+            output.append(i % 10).append(" ");
+        output.append("\n\n");
+        for (int i=0; i<nRows; i++) {
+            String rowNumString;
+            if (i >= 10)
+                rowNumString = i + "   ";
+            else
+                rowNumString = " " + i + "   ";
+            output.append(rowNumString);
+            for (int j = 0; j < nCols; j++)
+                if (board[i][j] == null)
+                    output.append("- ");
+                else
+                    output.append(board[i][j].toString()).append(" ");
+            output.append("\n");
+        }
+        return output.toString();
+    }
+
+    //  Sets all mines and falsely-flagged cells to be revealed. This is used
+    //      when a mine is clicked, and the mines are shown to the player upon
+    //      game over.
+    @Override
+    public void setRevealed() {
+        for (int i=0; i<nRows; i++)
+            for (int j=0; j<nCols; j++) {
+                if (board[i][j].isMine() || board[i][j].isFlagged()) {
+                    if (!board[i][j].isRevealed() && !board[i][j].isFlagged())
+                        cellRevealed(i*nCols + j);
+                    board[i][j].setRevealed();
+                    updateTracker.addUpdate(i, j);
+                }
+            }
+    }
+
+    // Turns all question-marked cells into normal unrevealed cells. This is
+    //      done when question marks are disabled while a game is in progress
+    //      and there are already question marks on the board.
+    @Override
+    public void clearQuestionMarks() {
+        for (int i=0; i<nRows; i++)
+            for (int j=0; j<nCols; j++)
+                if (board[i][j].isQuestionMarked()) {
+                    board[i][j].clearQuestionMark();
+                    updateTracker.addUpdate(i, j);
+                }
+    }
+
+    // Flags all remaining unrevealed (or question-marked) cells on the board.
+    //      Used when the auto-flag option is set and the game is nearly won.
+    //      A call to this method flags all remaining cells (that are confirmed
+    //      beforehand to be mines), and the game ends in a win.
+    @Override
+    public void flagAllUnrevealed() {
+        for (int i=0; i<nRows; i++)
+            for (int j=0; j<nCols; j++)
+                if (!(board[i][j].isFlagged() || board[i][j].isRevealed())) {
+                    board[i][j].clearQuestionMark();
+                    flagToggled(i*nCols + j, board[i][j].toggleFlagged(false), board[i][j].isMine());
+                    updateTracker.addUpdate(i, j);
+                }
+    }
+
+}
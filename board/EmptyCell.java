@@ -9,8 +9,9 @@ public class EmptyCell extends Cell {
     //  An EmptyCell contains one additional field not present in its
     //      superclass: int minesAdjacent. This field stores the number of
     //      MineCell instances adjacent to this cell, including diagonally.
-    //      The minesAdjacent field is incremented to the correct value through
-    //      calls to incMinesAdjacent when the board is populated in Board.
+    //      The boards create each EmptyCell with its count already known, but
+    //      the field can still be built up one mine at a time through calls
+    //      to incMinesAdjacent.
 
     private int minesAdjacent;
 
@@ -19,6 +20,13 @@ public class EmptyCell extends Cell {
         minesAdjacent = 0;
     }
 
+    //  Used when the number of adjacent mines is already known, as it is
+    //      whenever a board is populated.
+    public EmptyCell(int minesAdjacent) {
+        super();
+        this.minesAdjacent = minesAdjacent;
+    }
+
     @Override
     public boolean isMine() {
         return false;
@@ -0,0 +1,123 @@
+package board;
+
+final class MineBitmap {
+
+    //  A MineBitmap holds the mines of a board as one bit per cell, each row
+    //      stored in its own run of longs, and counts every cell's adjacent
+    //      mines 64 cells at a time. The engines fill one from their own
+    //      cells once the mines are placed, and have it write the counts
+    //      into their storage, instead of visiting the neighbors of each
+    //      mine in turn.
+
+    //  For one word of a row, the mines to the west and east of each cell are
+    //      the word shifted by one bit, with the bit shifted in taken from
+    //      the neighboring word. The mine bits of the eight neighbors of 64
+    //      cells are then eight words, which are summed with bitwise adders
+    //      into four words holding one bit of each cell's count. Cells past
+    //      the edges of the board read as empty, so the counts need no bounds
+    //      checks, and only the cells with a nonzero count are written out.
+
+    //  This could be written with the incubating Vector API, but that needs
+    //      the module added by hand to every compile and every launch of the
+    //      game, and longs already process 64 cells per operation.
+
+    private static final int MINE_SHIFT = Integer.numberOfTrailingZeros(Board.LAYOUT_MINE);
+
+    private final int rows, cols, words;
+    private final long[] mines;
+
+    MineBitmap(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        words = (cols + 63) >>> 6;
+        mines = new long[rows * words];
+    }
+
+    void setMine(int row, int col) {
+        mines[row*words + (col >>> 6)] |= 1L << col;
+    }
+
+    //  Sets the mines of the byte engines, whose cells are stored with the
+    //      given offset and row stride and have LAYOUT_MINE set for mines.
+    //      The bits are shifted into place rather than tested for, so the
+    //      scan has no branches to mispredict.
+    void setMines(byte[] cells, int offset, int stride) {
+        for (int row=0; row<rows; row++)
+            for (int w=0; w<words; w++) {
+                int start = offset + row*stride + (w << 6);
+                int length = Math.min(64, cols - (w << 6));
+                long bits = 0;
+                for (int bit=0; bit<length; bit++)
+                    bits |= (long) ((cells[start + bit] & Board.LAYOUT_MINE) >>> MINE_SHIFT) << bit;
+                mines[row*words + w] |= bits;
+            }
+    }
+
+    //  Adds the number of adjacent mines of every cell that is not a mine to
+    //      the byte at counts[offset + row*stride + col], where the counts
+    //      are expected to be 0.
+    void addCounts(byte[] counts, int offset, int stride) {
+        long lastMask = ((cols & 63) == 0) ? -1L : (1L << cols) - 1;
+        long[] planes = new long[8];
+        for (int row=0; row<rows; row++) {
+            int above = (row > 0) ? (row-1) * words : -1;
+            int here = row * words;
+            int below = (row+1 < rows) ? (row+1) * words : -1;
+            for (int w=0; w<words; w++) {
+                long center = mines[here + w];
+                planes[0] = west(above, w);
+                planes[1] = word(above, w);
+                planes[2] = east(above, w);
+                planes[3] = west(here, w);
+                planes[4] = east(here, w);
+                planes[5] = west(below, w);
+                planes[6] = word(below, w);
+                planes[7] = east(below, w);
+
+                //  Each neighbor word is added to the four count words with
+                //      a ripple of half adders.
+                long b0 = 0, b1 = 0, b2 = 0, b3 = 0;
+                for (long plane : planes) {
+                    long carry0 = b0 & plane;
+                    b0 ^= plane;
+                    long carry1 = b1 & carry0;
+                    b1 ^= carry0;
+                    long carry2 = b2 & carry1;
+                    b2 ^= carry1;
+                    b3 |= carry2;
+                }
+
+                long nonzero = (b0 | b1 | b2 | b3) & ~center;
+                if (w == words - 1)
+                    nonzero &= lastMask;
+                int base = offset + row*stride + (w << 6);
+                while (nonzero != 0) {
+                    int bit = Long.numberOfTrailingZeros(nonzero);
+                    nonzero &= nonzero - 1;
+                    int count = (int) (((b0 >>> bit) & 1) | ((b1 >>> bit) & 1) << 1
+                            | ((b2 >>> bit) & 1) << 2 | ((b3 >>> bit) & 1) << 3);
+                    counts[base + bit] += (byte) count;
+                }
+            }
+        }
+    }
+
+    //  Returns word w of the row starting at the given index, or 0 for the
+    //      rows and words past the edges of the board.
+    private long word(int rowStart, int w) {
+        if (rowStart < 0 || w < 0 || w >= words)
+            return 0;
+        return mines[rowStart + w];
+    }
+
+    //  The mines to the west of each cell: bit c is set if cell c-1 is a mine.
+    private long west(int rowStart, int w) {
+        return (word(rowStart, w) << 1) | (word(rowStart, w - 1) >>> 63);
+    }
+
+    //  The mines to the east of each cell: bit c is set if cell c+1 is a mine.
+    private long east(int rowStart, int w) {
+        return (word(rowStart, w) >>> 1) | (word(rowStart, w + 1) << 63);
+    }
+
+}
@@ -0,0 +1,182 @@
+package board;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+final class Openings {
+
+    //  Openings labels every opening of a populated board: each connected
+    //      region of blank cells, meaning cells that are neither mines nor
+    //      adjacent to one, together with the numbered cells bordering it.
+    //      Clicking any blank cell of an opening reveals exactly that
+    //      opening, so the engines can reveal it from a precomputed list
+    //      instead of walking the board cell by cell.
+
+    //  The regions are found with a union-find over the blank cells, joining
+    //      each blank cell to its blank neighbors. The root of every set is
+    //      its lowest index, so a single pass in index order numbers the
+    //      openings 0 to count-1 in the order of their first cell. The cells
+    //      of every opening are then stored in one flat array, opening by
+    //      opening, with offsets marking where each opening starts. A
+    //      numbered cell bordering several openings is listed in each. The
+    //      number of openings, which Board reports for statistics, comes for
+    //      free.
+
+    //  The list is only a shortcut for an opening that has not been touched
+    //      yet. A flagged blank cell stops a flood fill from spreading
+    //      through it, and once part of an opening has been revealed, a
+    //      later click only spreads through the cells still hidden. So each
+    //      opening keeps a count of its flagged blank cells and a flag
+    //      recording whether it has been opened, and open returns false for
+    //      any opening the list might not describe exactly, leaving it to the
+    //      engine's flood fill.
+
+    private final int[] labels;
+    private final int[] offsets;
+    private final int[] cells;
+    private final int[] flags;
+    private final boolean[] opened;
+
+    Openings(int rows, int cols, IntPredicate isBlank) {
+        int size = rows * cols;
+        int[] parent = new int[size];
+        Arrays.fill(parent, -1);
+        for (int index=0; index<size; index++)
+            if (isBlank.test(index))
+                parent[index] = index;
+        for (int row=0; row<rows; row++)
+            for (int col=0; col<cols; col++) {
+                int index = row*cols + col;
+                if (parent[index] < 0)
+                    continue;
+                if (col+1 < cols)
+                    union(parent, index, index + 1);
+                if (row+1 < rows) {
+                    if (col > 0)
+                        union(parent, index, index + cols - 1);
+                    union(parent, index, index + cols);
+                    if (col+1 < cols)
+                        union(parent, index, index + cols + 1);
+                }
+            }
+
+        //  Every parent has a lower index than its child, so when the cells
+        //      are numbered in index order, a cell's parent already holds the
+        //      opening's number, and the parent array can be overwritten with
+        //      the numbers as it goes.
+        labels = parent;
+        int count = 0;
+        for (int index=0; index<size; index++) {
+            if (parent[index] < 0)
+                continue;
+            labels[index] = (parent[index] == index) ? count++ : labels[parent[index]];
+        }
+
+        //  The blank cells are sorted by opening first, so that the border of
+        //      each opening can be collected by visiting the neighbors of its
+        //      blank cells, stamping each border cell with the opening's
+        //      number plus one so it is only listed once.
+        int[] blankOffsets = new int[count + 1];
+        for (int index=0; index<size; index++)
+            if (labels[index] >= 0)
+                blankOffsets[labels[index] + 1]++;
+        for (int i=0; i<count; i++)
+            blankOffsets[i+1] += blankOffsets[i];
+        int[] blanks = new int[blankOffsets[count]];
+        int[] next = Arrays.copyOf(blankOffsets, count);
+        for (int index=0; index<size; index++)
+            if (labels[index] >= 0)
+                blanks[next[labels[index]]++] = index;
+
+        int[] stamps = new int[size];
+        int[] list = new int[blanks.length * 2 + 8];
+        int length = 0;
+        offsets = new int[count + 1];
+        for (int label=0; label<count; label++) {
+            int first = blankOffsets[label];
+            int last = blankOffsets[label+1];
+            if (list.length < length + (last - first) * 9)
+                list = Arrays.copyOf(list, Math.max(list.length * 2, length + (last - first) * 9));
+            System.arraycopy(blanks, first, list, length, last - first);
+            length += last - first;
+            for (int b=first; b<last; b++) {
+                int row = blanks[b] / cols;
+                int col = blanks[b] % cols;
+                for (int i=Math.max(row-1, 0); i<=Math.min(row+1, rows-1); i++)
+                    for (int j=Math.max(col-1, 0); j<=Math.min(col+1, cols-1); j++) {
+                        int neighbor = i*cols + j;
+                        if (labels[neighbor] < 0 && stamps[neighbor] != label + 1) {
+                            stamps[neighbor] = label + 1;
+                            list[length++] = neighbor;
+                        }
+                    }
+            }
+            offsets[label+1] = length;
+        }
+        cells = Arrays.copyOf(list, length);
+        flags = new int[count];
+        opened = new boolean[count];
+    }
+
+    //  Joins the sets of two blank cells, keeping the lower root, or does
+    //      nothing if the second cell is not blank.
+    private static void union(int[] parent, int a, int b) {
+        if (parent[b] < 0)
+            return;
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA < rootB)
+            parent[rootB] = rootA;
+        else if (rootB < rootA)
+            parent[rootA] = rootB;
+    }
+
+    //  Returns the root of a cell's set, halving the path along the way.
+    private static int find(int[] parent, int index) {
+        while (parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+
+    int getCount() {
+        return opened.length;
+    }
+
+    //  Returns the opening a blank cell belongs to, or -1 for any other cell.
+    int getLabel(int index) {
+        return labels[index];
+    }
+
+    //  Marks the opening as opened, and returns true if it may be revealed
+    //      from its list: it has not been opened before, and none of its
+    //      blank cells are flagged.
+    boolean open(int label) {
+        boolean untouched = !opened[label] && flags[label] == 0;
+        opened[label] = true;
+        return untouched;
+    }
+
+    //  The cells of an opening are those from getStart up to but excluding
+    //      getEnd: its blank cells in ascending order, then its border.
+    int getStart(int label) {
+        return offsets[label];
+    }
+
+    int getEnd(int label) {
+        return offsets[label + 1];
+    }
+
+    int getCell(int position) {
+        return cells[position];
+    }
+
+    //  Called whenever a flag is set or cleared.
+    void flagChanged(int index, boolean flagged) {
+        int label = labels[index];
+        if (label >= 0)
+            flags[label] += flagged ? 1 : -1;
+    }
+
+}
@@ -0,0 +1,324 @@
+package board;
+
+import game.UpdateTracker;
+
+public class PackedBoard extends Board {
+
+    //  A PackedBoard implements the same game logic as CellBoard, but stores
+    //      the whole grid in a single byte array instead of a 2D array of
+    //      Cell objects. The cell at a given row and column is stored at
+    //      index row*nCols + col. Each byte packs everything a Cell object
+    //      would otherwise hold in its fields:
+    //
+    //          bits 0-3: number of adjacent mines (0-8, always 0 for mines)
+    //          bit 4:    the cell is a mine
+    //          bit 5:    the cell is revealed
+    //          bit 6:    the cell is flagged
+    //          bit 7:    the cell is question marked
+    //
+    //      MineCell's exploded field has no bit of its own, as only one mine
+    //      can ever be exploded per game. Its index is stored in an int field
+    //      instead, and is -1 until a mine is clicked.
+
+    //  Every method here mirrors the method of the same name in CellBoard,
+    //      and the comments there describe the intended behavior. Comments
+    //      in this class only describe what is different about the packed
+    //      representation.
+
+    static final int ADJACENT_MASK = LAYOUT_ADJACENT_MASK;
+    static final int MINE = LAYOUT_MINE;
+    static final int REVEALED = STATE_REVEALED;
+    static final int FLAGGED = STATE_FLAGGED;
+    static final int QUESTION_MARKED = STATE_QUESTION_MARKED;
+
+    private final byte[] cells;
+    private int exploded;
+
+    public PackedBoard(int rows, int cols, UpdateTracker tracker) {
+        super(rows, cols, tracker);
+        cells = new byte[rows * cols];
+        exploded = -1;
+    }
+
+    @Override
+    protected void placeMine(int index) {
+        cells[index] |= MINE;
+    }
+
+    @Override
+    protected void finishPopulating() {
+        addAdjacent();
+        labelOpenings(this::isBlank);
+    }
+
+    private boolean isBlank(int index) {
+        return (cells[index] & (MINE | ADJACENT_MASK)) == 0;
+    }
+
+    //  A layout is packed the same way as the cells of a board that has not
+    //      been clicked yet, so populating from one and taking one are
+    //      plain copies.
+    @Override
+    public void populateBoard(byte[] layout) {
+        System.arraycopy(layout, 0, cells, 0, cells.length);
+        labelOpenings(this::isBlank);
+    }
+
+    @Override
+    public byte[] getLayout() {
+        byte[] layout = new byte[cells.length];
+        for (int i=0; i<cells.length; i++)
+            layout[i] = (byte) (cells[i] & (MINE | ADJACENT_MASK));
+        return layout;
+    }
+
+    @Override
+    public byte[] getCellStates() {
+        return cells.clone();
+    }
+
+    //  The mines are copied into a MineBitmap, which writes each cell's count
+    //      into the low four bits of its byte.
+    private void addAdjacent() {
+        MineBitmap bitmap = new MineBitmap(nRows, nCols);
+        bitmap.setMines(cells, 0, nCols);
+        bitmap.addCounts(cells, 0, nCols);
+    }
+
+    @Override
+    public int checkChord(int row, int col) {
+        int cell = cells[row*nCols + col];
+        if ((cell & REVEALED) == 0)
+            return NO_CHORD;
+        int minesAdjacent = cell & ADJACENT_MASK;
+        int flags = getFlagsAdjacent(row, col);
+        if (minesAdjacent == getHiddenAdjacent(row, col) + flags)
+            return FLAG_CHORD;
+        if (minesAdjacent == flags)
+            return REVEAL_CHORD;
+        return NO_CHORD;
+    }
+
+    //  Equivalent to Cell's toggleFlagged method, operating on the byte at the
+    //      given index.
+    private int toggleFlagged(int index, boolean marksEnabled) {
+        int cell = cells[index];
+        if ((cell & REVEALED) != 0)
+            return Cell.FLAG_UNCHANGED;
+        if ((cell & QUESTION_MARKED) != 0) {
+            cells[index] = (byte) (cell & ~QUESTION_MARKED);
+            return Cell.QUESTION_MARK_CLEARED;
+        }
+        if ((cell & FLAGGED) != 0 && marksEnabled)
+            cell |= QUESTION_MARKED;
+        cell ^= FLAGGED;
+        cells[index] = (byte) cell;
+        if ((cell & FLAGGED) != 0)
+            return Cell.FLAG_SET;
+        return Cell.FLAG_CLEARED;
+    }
+
+    //  Equivalent to the clickCell methods in EmptyCell and MineCell. A
+    //      clicked mine is not revealed, only exploded, exactly as in
+    //      MineCell.
+    private boolean clickCell(int index) {
+        int cell = cells[index];
+        if ((cell & MINE) != 0) {
+            if ((cell & FLAGGED) != 0)
+                return false;
+            exploded = index;
+            cells[index] = (byte) (cell & ~QUESTION_MARKED);
+            return true;
+        }
+        if ((cell & (FLAGGED | REVEALED)) == 0) {
+            cell |= REVEALED;
+            cellRevealed(index);
+        }
+        cells[index] = (byte) (cell & ~QUESTION_MARKED);
+        return false;
+    }
+
+    @Override
+    public int rightClickCell(int row, int col, boolean marksEnabled) {
+        int index = row*nCols + col;
+        int status = toggleFlagged(index, marksEnabled);
+        flagToggled(index, status, (cells[index] & MINE) != 0);
+        if (status != Cell.FLAG_UNCHANGED)
+            updateTracker.addUpdate(row, col);
+        return status;
+    }
+
+    @Override
+    public boolean leftClickCell(int row, int col) {
+        int index = row*nCols + col;
+        if ((cells[index] & (REVEALED | FLAGGED)) != 0)
+            return false;
+        if (clickCell(index)) {
+            updateTracker.addUpdate(row, col);
+            return true;
+        }
+        if ((cells[index] & ADJACENT_MASK) == 0) {
+            chainClickCells(row, col);
+            return false;
+        }
+        updateTracker.addUpdate(row, col);
+        return false;
+    }
+
+    private void chainClickCells(int row, int col) {
+        int index = row*nCols + col;
+        if ((cells[index] & FLAGGED) != 0)
+            return;
+        clickCell(index);
+        updateTracker.addUpdate(row, col);
+        if ((cells[index] & ADJACENT_MASK) != 0)
+            return;
+        int label = openings.getLabel(index);
+        if (openings.open(label)) {
+            for (int i=openings.getStart(label); i<openings.getEnd(label); i++) {
+                int cell = openings.getCell(i);
+                if ((cells[cell] & (REVEALED | FLAGGED)) != 0)
+                    continue;
+                clickCell(cell);
+                updateTracker.markDirty(cell);
+            }
+            return;
+        }
+        floodPush(index);
+        while (!floodEmpty()) {
+            int current = floodPop();
+            int r = current / nCols;
+            int c = current % nCols;
+            for (int i=r-1; i<=r+1; i++)
+                for (int j=c-1; j<=c+1; j++) {
+                    if (!isValidCell(i, j))
+                        continue;
+                    int neighbor = i*nCols + j;
+                    if ((cells[neighbor] & (REVEALED | FLAGGED)) != 0)
+                        continue;
+                    clickCell(neighbor);
+                    updateTracker.markDirty(neighbor);
+                    if ((cells[neighbor] & ADJACENT_MASK) == 0)
+                        floodPush(neighbor);
+                }
+        }
+    }
+
+    @Override
+    public boolean chordClickLeft(int row, int col) {
+        boolean clickedMine = false;
+        for (int i = row - 1; i <= row + 1; i++)
+            for (int j = col - 1; j <= col + 1; j++)
+                if (isValidCell(i, j) && (i != row || j != col)) {
+                    int index = i*nCols + j;
+                    boolean isMine = (cells[index] & MINE) != 0;
+                    if (clickedMine && isMine)
+                        continue;
+                    clickedMine = (clickCell(index) || clickedMine);
+                    if (!isMine && (cells[index] & ADJACENT_MASK) == 0)
+                        chainClickCells(i, j);
+                    else
+                        updateTracker.addUpdate(i, j);
+                }
+        return clickedMine;
+    }
+
+    @Override
+    public int chordClickRight(int row, int col) {
+        int count = 0;
+        for (int i = row - 1; i <= row + 1; i++)
+            for (int j = col - 1; j <= col + 1; j++)
+                if (isValidCell(i, j) && (cells[i*nCols + j] & (REVEALED | FLAGGED)) == 0) {
+                    cells[i*nCols + j] &= ~QUESTION_MARKED;
+                    rightClickCell(i, j, false);
+                    count++;
+                }
+        return count;
+    }
+
+    //  Equivalent to the getViewState methods in EmptyCell and MineCell. An
+    //      unpopulated PackedBoard contains only zero bytes, which are
+    //      unrevealed, so no special case is needed before the first click.
+    @Override
+    public int getViewState(int row, int col) {
+        int index = row*nCols + col;
+        int cell = cells[index];
+        boolean flagged = (cell & FLAGGED) != 0;
+        boolean revealed = (cell & REVEALED) != 0;
+        if ((cell & MINE) != 0) {
+            if (flagged)
+                return Cell.FLAGGED;
+            if (index == exploded)
+                return Cell.EXPLODED_MINE;
+            if (revealed)
+                return Cell.REVEALED_MINE;
+        } else {
+            if (flagged && revealed)
+                return Cell.FALSE_FLAGGED;
+            if (flagged)
+                return Cell.FLAGGED;
+        }
+        if ((cell & QUESTION_MARKED) != 0)
+            return Cell.QUESTION_MARKED;
+        if (!revealed)
+            return Cell.UNREVEALED;
+        return cell & ADJACENT_MASK;
+    }
+
+    //  Produces the same output as CellBoard's toString, using the same
+    //      1-character strings as the Cell subclasses.
+    @Override
+    public String toString() {
+        final String symbols = ".12345678-FN*X?";
+        StringBuilder output = new StringBuilder("     ");
+        for (int i=0; i<nCols; i++)
+            output.append(i / 10).append(" ");
+        output.append("\n     ");
+        for (int i=0; i<nCols; i++)
+            output.append(i % 10).append(" ");
+        output.append("\n\n");
+        for (int i=0; i<nRows; i++) {
+            String rowNumString;
+            if (i >= 10)
+                rowNumString = i + "   ";
+            else
+                rowNumString = " " + i + "   ";
+            output.append(rowNumString);
+            for (int j = 0; j < nCols; j++)
+                output.append(symbols.charAt(getViewState(i, j))).append(" ");
+            output.append("\n");
+        }
+        return output.toString();
+    }
+
+    @Override
+    public void setRevealed() {
+        for (int i=0; i<cells.length; i++)
+            if ((cells[i] & (MINE | FLAGGED)) != 0) {
+                if ((cells[i] & (REVEALED | FLAGGED)) == 0)
+                    cellRevealed(i);
+                cells[i] |= REVEALED;
+                updateTracker.markDirty(i);
+            }
+    }
+
+    @Override
+    public void clearQuestionMarks() {
+        for (int i=0; i<cells.length; i++)
+            if ((cells[i] & QUESTION_MARKED) != 0) {
+                cells[i] &= ~QUESTION_MARKED;
+                updateTracker.markDirty(i);
+            }
+    }
+
+    @Override
+    public void flagAllUnrevealed() {
+        for (int i=0; i<cells.length; i++)
+            if ((cells[i] & (FLAGGED | REVEALED)) == 0) {
+                cells[i] = (byte) ((cells[i] & ~QUESTION_MARKED) | FLAGGED);
+                flagToggled(i, Cell.FLAG_SET, (cells[i] & MINE) != 0);
+                updateTracker.markDirty(i);
+            }
+    }
+
+}
@@ -0,0 +1,376 @@
+package board;
+
+import game.UpdateTracker;
+
+public class PaddedBoard extends Board {
+
+    //  A PaddedBoard packs its cells into bytes exactly like PackedBoard, but
+    //      surrounds the grid with a border of sentinel cells one cell wide.
+    //      Each row of the array is nCols+2 bytes long, and the cell at a
+    //      given row and column is stored at index (row+1)*stride + col+1.
+    //      Every cell on the board therefore has eight neighbors in the
+    //      array, at the same eight offsets from its own index, and neighbor
+    //      loops walk a table of those offsets instead of checking each
+    //      position with isValidCell.
+
+    //  A sentinel is stored as a flagged, revealed cell that is not a mine.
+    //      Every loop that clicks or flags neighbors already skips cells that
+    //      are revealed or flagged, and no loop counts a non-mine as a mine,
+    //      so the sentinels are ignored without a branch of their own. A
+    //      cell on the board is only ever both revealed and flagged once the
+    //      game is lost and the false flags are shown.
+
+    //  The Board methods this class overrides, the layout format, and the
+    //      counts kept by Board all use flat indexes without the border
+    //      (row*nCols + col), so indexes are converted whenever they cross
+    //      between this class and Board, the Openings, or the UpdateTracker.
+    //      Every method here otherwise mirrors the method of the same name in
+    //      PackedBoard.
+
+    static final int ADJACENT_MASK = PackedBoard.ADJACENT_MASK;
+    static final int MINE = PackedBoard.MINE;
+    static final int REVEALED = PackedBoard.REVEALED;
+    static final int FLAGGED = PackedBoard.FLAGGED;
+    static final int QUESTION_MARKED = PackedBoard.QUESTION_MARKED;
+    static final int SENTINEL = REVEALED | FLAGGED;
+
+    private final int stride;
+    private final int[] neighbors;
+    private final byte[] cells;
+    private int exploded;
+
+    public PaddedBoard(int rows, int cols, UpdateTracker tracker) {
+        super(rows, cols, tracker);
+        stride = cols + 2;
+        cells = new byte[(rows + 2) * stride];
+        for (int col=0; col<stride; col++) {
+            cells[col] = SENTINEL;
+            cells[(rows+1)*stride + col] = SENTINEL;
+        }
+        for (int row=1; row<=rows; row++) {
+            cells[row*stride] = SENTINEL;
+            cells[row*stride + cols+1] = SENTINEL;
+        }
+        //  The offsets of the eight neighbors, in row-major order, so that
+        //      loops over them visit cells in the same order as PackedBoard's
+        //      nested loops do.
+        neighbors = new int[] {
+            -stride - 1, -stride, -stride + 1,
+            -1, 1,
+            stride - 1, stride, stride + 1
+        };
+        exploded = -1;
+    }
+
+    //  Converts between flat indexes without the border and array indexes.
+    private int padded(int row, int col) {
+        return (row+1)*stride + col+1;
+    }
+
+    private int padded(int index) {
+        return padded(index / nCols, index % nCols);
+    }
+
+    private int unpadded(int position) {
+        int row = position / stride;
+        return (row-1)*nCols + position - row*stride - 1;
+    }
+
+    @Override
+    protected void placeMine(int index) {
+        cells[padded(index)] |= MINE;
+    }
+
+    @Override
+    protected void finishPopulating() {
+        addAdjacent();
+        labelOpenings(this::isBlank);
+    }
+
+    private boolean isBlank(int index) {
+        return (cells[padded(index)] & (MINE | ADJACENT_MASK)) == 0;
+    }
+
+    //  A layout has the same packing as the cells, without the border, so it
+    //      is copied one row at a time.
+    @Override
+    public void populateBoard(byte[] layout) {
+        for (int row=0; row<nRows; row++)
+            System.arraycopy(layout, row*nCols, cells, padded(row, 0), nCols);
+        labelOpenings(this::isBlank);
+    }
+
+    @Override
+    public byte[] getLayout() {
+        byte[] layout = new byte[nRows * nCols];
+        for (int row=0; row<nRows; row++) {
+            int position = padded(row, 0);
+            for (int col=0; col<nCols; col++)
+                layout[row*nCols + col] = (byte) (cells[position + col] & (MINE | ADJACENT_MASK));
+        }
+        return layout;
+    }
+
+    @Override
+    public byte[] getCellStates() {
+        byte[] states = new byte[nRows * nCols];
+        for (int row=0; row<nRows; row++)
+            System.arraycopy(cells, padded(row, 0), states, row*nCols, nCols);
+        return states;
+    }
+
+    //  The counts are written by a MineBitmap as in PackedBoard, offset past
+    //      the border, so the sentinels are never counted into.
+    private void addAdjacent() {
+        MineBitmap bitmap = new MineBitmap(nRows, nCols);
+        bitmap.setMines(cells, padded(0, 0), stride);
+        bitmap.addCounts(cells, padded(0, 0), stride);
+    }
+
+    @Override
+    public int checkChord(int row, int col) {
+        int cell = cells[padded(row, col)];
+        if ((cell & REVEALED) == 0)
+            return NO_CHORD;
+        int minesAdjacent = cell & ADJACENT_MASK;
+        int flags = getFlagsAdjacent(row, col);
+        if (minesAdjacent == getHiddenAdjacent(row, col) + flags)
+            return FLAG_CHORD;
+        if (minesAdjacent == flags)
+            return REVEAL_CHORD;
+        return NO_CHORD;
+    }
+
+    private int toggleFlagged(int position, boolean marksEnabled) {
+        int cell = cells[position];
+        if ((cell & REVEALED) != 0)
+            return Cell.FLAG_UNCHANGED;
+        if ((cell & QUESTION_MARKED) != 0) {
+            cells[position] = (byte) (cell & ~QUESTION_MARKED);
+            return Cell.QUESTION_MARK_CLEARED;
+        }
+        if ((cell & FLAGGED) != 0 && marksEnabled)
+            cell |= QUESTION_MARKED;
+        cell ^= FLAGGED;
+        cells[position] = (byte) cell;
+        if ((cell & FLAGGED) != 0)
+            return Cell.FLAG_SET;
+        return Cell.FLAG_CLEARED;
+    }
+
+    private boolean clickCell(int position) {
+        int cell = cells[position];
+        if ((cell & MINE) != 0) {
+            if ((cell & FLAGGED) != 0)
+                return false;
+            exploded = position;
+            cells[position] = (byte) (cell & ~QUESTION_MARKED);
+            return true;
+        }
+        if ((cell & (FLAGGED | REVEALED)) == 0) {
+            cell |= REVEALED;
+            cellRevealed(unpadded(position));
+        }
+        cells[position] = (byte) (cell & ~QUESTION_MARKED);
+        return false;
+    }
+
+    @Override
+    public int rightClickCell(int row, int col, boolean marksEnabled) {
+        return rightClickCell(padded(row, col), marksEnabled);
+    }
+
+    private int rightClickCell(int position, boolean marksEnabled) {
+        int index = unpadded(position);
+        int status = toggleFlagged(position, marksEnabled);
+        flagToggled(index, status, (cells[position] & MINE) != 0);
+        if (status != Cell.FLAG_UNCHANGED)
+            updateTracker.markDirty(index);
+        return status;
+    }
+
+    @Override
+    public boolean leftClickCell(int row, int col) {
+        int position = padded(row, col);
+        if ((cells[position] & (REVEALED | FLAGGED)) != 0)
+            return false;
+        if (clickCell(position)) {
+            updateTracker.addUpdate(row, col);
+            return true;
+        }
+        if ((cells[position] & ADJACENT_MASK) == 0) {
+            chainClickCells(position);
+            return false;
+        }
+        updateTracker.addUpdate(row, col);
+        return false;
+    }
+
+    private void chainClickCells(int position) {
+        if ((cells[position] & FLAGGED) != 0)
+            return;
+        int index = unpadded(position);
+        clickCell(position);
+        updateTracker.markDirty(index);
+        if ((cells[position] & ADJACENT_MASK) != 0)
+            return;
+        int label = openings.getLabel(index);
+        if (openings.open(label)) {
+            for (int i=openings.getStart(label); i<openings.getEnd(label); i++) {
+                int cell = openings.getCell(i);
+                int cellPosition = padded(cell);
+                if ((cells[cellPosition] & (REVEALED | FLAGGED)) != 0)
+                    continue;
+                clickCell(cellPosition);
+                updateTracker.markDirty(cell);
+            }
+            return;
+        }
+        floodPush(position);
+        while (!floodEmpty()) {
+            int current = floodPop();
+            for (int offset : neighbors) {
+                int neighbor = current + offset;
+                if ((cells[neighbor] & (REVEALED | FLAGGED)) != 0)
+                    continue;
+                clickCell(neighbor);
+                updateTracker.markDirty(unpadded(neighbor));
+                if ((cells[neighbor] & ADJACENT_MASK) == 0)
+                    floodPush(neighbor);
+            }
+        }
+    }
+
+    //  A chord is only made on a revealed number, which clicking again does
+    //      not change, so the loop only covers the eight neighbors, and
+    //      marks the same cells dirty as PackedBoard's. While a chord can be
+    //      made, no cell on the board is both revealed and flagged, so the
+    //      sentinels are told apart by their exact value.
+    @Override
+    public boolean chordClickLeft(int row, int col) {
+        int position = padded(row, col);
+        boolean clickedMine = false;
+        for (int offset : neighbors) {
+            int neighbor = position + offset;
+            if (cells[neighbor] == SENTINEL)
+                continue;
+            boolean isMine = (cells[neighbor] & MINE) != 0;
+            if (clickedMine && isMine)
+                continue;
+            clickedMine = (clickCell(neighbor) || clickedMine);
+            if (!isMine && (cells[neighbor] & ADJACENT_MASK) == 0)
+                chainClickCells(neighbor);
+            else
+                updateTracker.markDirty(unpadded(neighbor));
+        }
+        return clickedMine;
+    }
+
+    @Override
+    public int chordClickRight(int row, int col) {
+        int position = padded(row, col);
+        int count = 0;
+        for (int offset : neighbors) {
+            int neighbor = position + offset;
+            if ((cells[neighbor] & (REVEALED | FLAGGED)) == 0) {
+                cells[neighbor] &= ~QUESTION_MARKED;
+                rightClickCell(neighbor, false);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int getViewState(int row, int col) {
+        int position = padded(row, col);
+        int cell = cells[position];
+        boolean flagged = (cell & FLAGGED) != 0;
+        boolean revealed = (cell & REVEALED) != 0;
+        if ((cell & MINE) != 0) {
+            if (flagged)
+                return Cell.FLAGGED;
+            if (position == exploded)
+                return Cell.EXPLODED_MINE;
+            if (revealed)
+                return Cell.REVEALED_MINE;
+        } else {
+            if (flagged && revealed)
+                return Cell.FALSE_FLAGGED;
+            if (flagged)
+                return Cell.FLAGGED;
+        }
+        if ((cell & QUESTION_MARKED) != 0)
+            return Cell.QUESTION_MARKED;
+        if (!revealed)
+            return Cell.UNREVEALED;
+        return cell & ADJACENT_MASK;
+    }
+
+    @Override
+    public String toString() {
+        final String symbols = ".12345678-FN*X?";
+        StringBuilder output = new StringBuilder("     ");
+        for (int i=0; i<nCols; i++)
+            output.append(i / 10).append(" ");
+        output.append("\n     ");
+        for (int i=0; i<nCols; i++)
+            output.append(i % 10).append(" ");
+        output.append("\n\n");
+        for (int i=0; i<nRows; i++) {
+            String rowNumString;
+            if (i >= 10)
+                rowNumString = i + "   ";
+            else
+                rowNumString = " " + i + "   ";
+            output.append(rowNumString);
+            for (int j = 0; j < nCols; j++)
+                output.append(symbols.charAt(getViewState(i, j))).append(" ");
+            output.append("\n");
+        }
+        return output.toString();
+    }
+
+    //  The whole-board loops below walk the board row by row, so that they
+    //      never touch the border.
+
+    @Override
+    public void setRevealed() {
+        for (int row=0; row<nRows; row++) {
+            int position = padded(row, 0);
+            for (int col=0; col<nCols; col++, position++)
+                if ((cells[position] & (MINE | FLAGGED)) != 0) {
+                    if ((cells[position] & (REVEALED | FLAGGED)) == 0)
+                        cellRevealed(row*nCols + col);
+                    cells[position] |= REVEALED;
+                    updateTracker.markDirty(row*nCols + col);
+                }
+        }
+    }
+
+    @Override
+    public void clearQuestionMarks() {
+        for (int row=0; row<nRows; row++) {
+            int position = padded(row, 0);
+            for (int col=0; col<nCols; col++, position++)
+                if ((cells[position] & QUESTION_MARKED) != 0) {
+                    cells[position] &= ~QUESTION_MARKED;
+                    updateTracker.markDirty(row*nCols + col);
+                }
+        }
+    }
+
+    @Override
+    public void flagAllUnrevealed() {
+        for (int row=0; row<nRows; row++) {
+            int position = padded(row, 0);
+            for (int col=0; col<nCols; col++, position++)
+                if ((cells[position] & (FLAGGED | REVEALED)) == 0) {
+                    cells[position] = (byte) ((cells[position] & ~QUESTION_MARKED) | FLAGGED);
+                    flagToggled(row*nCols + col, Cell.FLAG_SET, (cells[position] & MINE) != 0);
+                    updateTracker.markDirty(row*nCols + col);
+                }
+        }
+    }
+
+}
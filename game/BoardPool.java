@@ -0,0 +1,289 @@
+package game;
+
+import board.Board;
+import solver.NoGuessGenerator;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.OptionalLong;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+public class BoardPool {
+
+    //  A BoardPool generates mine layouts ahead of time on a background
+    //      thread, so that the first click of a game does not have to wait
+    //      for mines to be placed and counted, or for a no-guess search. It
+    //      holds layouts for one Difficulty and one no-guess setting at a
+    //      time. Asking for any other kind throws the held layouts away and
+    //      starts generating the new kind. Whenever a layout is taken, the
+    //      background thread refills the pool.
+
+    //  The no-guess searches run on a ForkJoinPool of the BoardPool's own,
+    //      using half of the processors, rather than on the common pool, so
+    //      that a search made in the background never holds up parallel work
+    //      of the game or of its caller. Its threads, like the background
+    //      thread, are daemons of the lowest priority.
+
+    //  Layouts are generated before the first click is known, so a layout
+    //      may have a mine where the player clicks. A layout can still be
+    //      used if one of its reflections moves a safe cell under the click.
+    //      Flipping a board vertically or horizontally, and transposing a
+    //      square board, keeps every cell's neighbors, so the adjacent mine
+    //      counts stay correct and only have to be moved along with their
+    //      cells. That gives four versions of each layout, or eight on a
+    //      square board. The pool hands out the first layout with a version
+    //      that keeps the click safe, choosing at random among the versions
+    //      that do. If no layout fits, the Game generates one as usual.
+
+    //  Ordinary layouts are generated without avoiding any cell. A version
+    //      fits if the clicked cell is not a mine, or, if the first click must
+    //      be blank, if it has no adjacent mines either. No-guess layouts are
+    //      generated by a NoGuessGenerator, for a first click on a blank cell
+    //      at a random position. Clicking any blank cell of the opening that
+    //      click reveals reveals the same cells, so the layout is solvable
+    //      from any of them. Every other opening of the layout is checked as
+    //      well, and a version fits if the click lands on a blank cell of an
+    //      opening the layout is solvable from. If the generator finds
+    //      nothing within its budget, as happens on very dense boards, the
+    //      pool stops generating no-guess layouts for that Difficulty.
+
+    //  The pool holds at most MAX_LAYOUTS layouts, and fewer on big boards,
+    //      so that it never holds more than MAX_BYTES of layouts unless a
+    //      single layout is bigger than that.
+
+    public static final int MAX_LAYOUTS = 4;
+    public static final long MAX_BYTES = 16 << 20;
+
+    private static final long NO_GUESS_BUDGET_MILLIS = 4 * NoGuessGenerator.DEFAULT_BUDGET_MILLIS;
+
+    private static final int FLIP_ROWS = 1;
+    private static final int FLIP_COLUMNS = 2;
+    private static final int TRANSPOSE = 4;
+
+    private final ExecutorService executor;
+    private final NoGuessGenerator noGuessGenerator;
+    private final ArrayDeque<Layout> layouts;
+    private Difficulty difficulty;
+    private boolean noGuess;
+    private int capacity;
+    private int generation;
+    private boolean refilling;
+    private boolean exhausted;
+
+    //  A generated layout, and for a no-guess layout, the blank cells from
+    //      which it can be solved. starts is null for ordinary layouts.
+    private static final class Layout {
+        final byte[] cells;
+        final BitSet starts;
+
+        Layout(byte[] cells, BitSet starts) {
+            this.cells = cells;
+            this.starts = starts;
+        }
+    }
+
+    public BoardPool() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "BoardPool");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        noGuessGenerator = new NoGuessGenerator(new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("BoardPool-search-" + thread.getPoolIndex());
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }, null, false));
+        layouts = new ArrayDeque<>();
+    }
+
+    //  Makes the pool hold layouts of the given kind, and starts filling it
+    //      if it is not already full.
+    public synchronized void prepare(Difficulty diff, boolean noGuess) {
+        if (!diff.equals(difficulty) || noGuess != this.noGuess) {
+            layouts.clear();
+            generation++;
+            difficulty = diff;
+            this.noGuess = noGuess;
+            long cells = (long) diff.getRows() * diff.getColumns();
+            capacity = (int) Math.max(1, Math.min(MAX_LAYOUTS, MAX_BYTES / cells));
+            exhausted = false;
+        }
+        refill();
+    }
+
+    //  Returns a layout of the given kind that keeps a first click at (row,
+    //      col) safe, already reflected into place, or null if the pool holds
+    //      none.
+    public byte[] take(Difficulty diff, boolean noGuess, boolean firstAlwaysBlank, int row, int col) {
+        RandomGenerator random = ThreadLocalRandom.current();
+        int rows = diff.getRows();
+        int cols = diff.getColumns();
+        int versions = (rows == cols) ? 8 : 4;
+        int[] fitting = new int[versions];
+        Layout chosen = null;
+        int count = 0;
+        synchronized (this) {
+            prepare(diff, noGuess);
+            for (Iterator<Layout> it = layouts.iterator(); it.hasNext() && chosen == null; ) {
+                Layout layout = it.next();
+                count = 0;
+                for (int version=0; version<versions; version++)
+                    if (fits(layout, version, rows, cols, row, col, firstAlwaysBlank))
+                        fitting[count++] = version;
+                if (count > 0) {
+                    chosen = layout;
+                    it.remove();
+                }
+            }
+            refill();
+        }
+        if (chosen == null)
+            return null;
+        return reflect(chosen.cells, fitting[random.nextInt(count)], rows, cols);
+    }
+
+    //  Starts generating another layout if the pool has room for one and
+    //      is not already generating. Called with the lock held.
+    private void refill() {
+        if (refilling || exhausted || layouts.size() >= capacity)
+            return;
+        refilling = true;
+        int expected = generation;
+        Difficulty diff = difficulty;
+        boolean generateNoGuess = noGuess;
+        executor.execute(() -> {
+            Layout layout = null;
+            try {
+                layout = generateNoGuess ? generateNoGuess(diff) : generate(diff);
+            } finally {
+                synchronized (this) {
+                    refilling = false;
+                    if (expected == generation) {
+                        if (layout == null)
+                            exhausted = true;
+                        else
+                            layouts.add(layout);
+                    }
+                    refill();
+                }
+            }
+        });
+    }
+
+    private Layout generate(Difficulty diff) {
+        Board board = newScratchBoard(diff);
+        board.populateBoard(-2, -2, diff.getMines(), false, ThreadLocalRandom.current());
+        return new Layout(board.getLayout(), null);
+    }
+
+    //  Returns a no-guess layout and the openings it is solvable from, or
+    //      null if the generator found none in time.
+    private Layout generateNoGuess(Difficulty diff) {
+        RandomGenerator random = ThreadLocalRandom.current();
+        int rows = diff.getRows();
+        int cols = diff.getColumns();
+        int row = random.nextInt(rows);
+        int col = random.nextInt(cols);
+        OptionalLong seed = noGuessGenerator.findSeed(rows, cols, diff.getMines(), row, col, true,
+                random.nextLong(), NO_GUESS_BUDGET_MILLIS);
+        if (seed.isEmpty())
+            return null;
+        Board board = newScratchBoard(diff);
+        board.populateBoard(row, col, diff.getMines(), true, new SplittableRandom(seed.getAsLong()));
+        byte[] cells = board.getLayout();
+        return new Layout(cells, findStarts(cells, rows, cols, row*cols + col));
+    }
+
+    //  Returns the blank cells of every opening the layout can be solved
+    //      from, given one blank cell it is already known to be solvable from.
+    private static BitSet findStarts(byte[] cells, int rows, int cols, int known) {
+        BitSet starts = new BitSet(cells.length);
+        BitSet seen = new BitSet(cells.length);
+        for (int index=0; index<cells.length; index++) {
+            if (cells[index] != 0 || seen.get(index))
+                continue;
+            BitSet opening = findOpening(cells, rows, cols, index);
+            seen.or(opening);
+            if (opening.get(known) || NoGuessGenerator.isSolvable(cells, rows, cols, index / cols, index % cols))
+                starts.or(opening);
+        }
+        return starts;
+    }
+
+    private static Board newScratchBoard(Difficulty diff) {
+        UpdateTracker changes = new UpdateTracker(diff.getRows(), diff.getColumns());
+        return Board.create(Board.PACKED_ENGINE, diff.getRows(), diff.getColumns(), changes);
+    }
+
+    //  Returns the blank cells connected to the given blank cell, which are
+    //      the cells that reveal the same opening when clicked.
+    private static BitSet findOpening(byte[] cells, int rows, int cols, int start) {
+        BitSet opening = new BitSet(cells.length);
+        int[] stack = new int[cells.length];
+        int size = 0;
+        opening.set(start);
+        stack[size++] = start;
+        while (size > 0) {
+            int index = stack[--size];
+            int row = index / cols;
+            int col = index % cols;
+            for (int i=row-1; i<=row+1; i++)
+                for (int j=col-1; j<=col+1; j++) {
+                    int neighbor = i*cols + j;
+                    if (i>=0 && j>=0 && i<rows && j<cols && cells[neighbor] == 0 && !opening.get(neighbor)) {
+                        opening.set(neighbor);
+                        stack[size++] = neighbor;
+                    }
+                }
+        }
+        return opening;
+    }
+
+    //  Returns true if the given version of a layout keeps a first click at
+    //      (row, col) safe. The cell checked is the one the version moves
+    //      under the click.
+    private static boolean fits(Layout layout, int version, int rows, int cols, int row, int col,
+                                boolean firstAlwaysBlank) {
+        if ((version & FLIP_ROWS) != 0)
+            row = rows - 1 - row;
+        if ((version & FLIP_COLUMNS) != 0)
+            col = cols - 1 - col;
+        int index = ((version & TRANSPOSE) != 0) ? col*cols + row : row*cols + col;
+        if (layout.starts != null)
+            return layout.starts.get(index);
+        int cell = layout.cells[index];
+        if (firstAlwaysBlank)
+            return cell == 0;
+        return (cell & Board.LAYOUT_MINE) == 0;
+    }
+
+    //  Returns a copy of the layout with the given version applied: first
+    //      transposed, for square boards only, then flipped.
+    private static byte[] reflect(byte[] cells, int version, int rows, int cols) {
+        byte[] reflected = new byte[cells.length];
+        for (int row=0; row<rows; row++)
+            for (int col=0; col<cols; col++) {
+                int i = row, j = col;
+                if ((version & TRANSPOSE) != 0) {
+                    i = col;
+                    j = row;
+                }
+                if ((version & FLIP_ROWS) != 0)
+                    i = rows - 1 - i;
+                if ((version & FLIP_COLUMNS) != 0)
+                    j = cols - 1 - j;
+                reflected[i*cols + j] = cells[row*cols + col];
+            }
+        return reflected;
+    }
+
+}
@@ -1,6 +1,8 @@
 package game;
 
 import java.io.Serializable;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 public class Difficulty implements Serializable, Comparable<Difficulty> {
 
@@ -9,6 +11,10 @@ public class Difficulty implements Serializable, Comparable<Difficulty> {
     //  Three static final Difficulties are defined, representing the three
     //      default difficulties that come with the game.
 
+    //  Pinned to the value the class had before newGenerator was added, as
+    //      Difficulties are stored in save files.
+    private static final long serialVersionUID = -5288181047234569114L;
+
     public static final Difficulty BEGINNER = new Difficulty(9, 9, 10);
     public static final Difficulty INTERMEDIATE = new Difficulty(16, 16, 40);
     public static final Difficulty EXPERT = new Difficulty(16, 30, 99);
@@ -33,6 +39,15 @@ public class Difficulty implements Serializable, Comparable<Difficulty> {
         return nMines;
     }
 
+    //  Returns a new splittable generator for boards of this difficulty,
+    //      seeded from the given seed and this difficulty's parameters. The
+    //      same seed always gives the same generator for the same difficulty.
+    //      Callers generating boards on several threads should give each
+    //      thread its own generator by calling split() on this one.
+    public RandomGenerator.SplittableGenerator newGenerator(long seed) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + hashCode());
+    }
+
     //  Used both to check against the default difficulties, and to make the
     //      hashmap in SaveState work properly.
     @Override
@@ -1,7 +1,17 @@
 package game;
 
 import board.Board;
+import board.BoardMetrics;
 import board.Cell;
+import solver.NoGuessGenerator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.OptionalLong;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+import java.util.random.RandomGenerator;
 
 public class Game {
 
@@ -12,6 +22,43 @@ public class Game {
     //      UpdateTracker, which keeps track of which cells have been changed
     //      since the board was last drawn in the GUI.
 
+    //  Consumers without a GUI can instead register GameListeners, which are
+    //      told about every change at the end of each click. The Board writes
+    //      its changes into a second UpdateTracker, boardChanges, which the
+    //      Game drains after every click, passing each changed cell on to the
+    //      GUI's tracker and sorting it into a batch for the listeners by its
+    //      new view state. The batches are plain int arrays kept by the Game,
+    //      so reporting a large cascade creates no objects. The boards mark
+    //      some cells that a click leaves as they were, such as the neighbors
+    //      of a chord that are already revealed, so while there are listeners
+    //      the Game keeps the view state it last reported for every cell, and
+    //      only cells whose view state differs from it are reported.
+
+    //  Mine layouts are drawn from a RandomGenerator. A Game created without
+    //      one uses the calling thread's ThreadLocalRandom, so games on
+    //      different threads never contend on a shared generator. A Game
+    //      created with a seed or a generator of its own produces the same
+    //      sequence of boards every time, for benchmarks and replays.
+
+    //  With the no-guess option set, the first left click asks a
+    //      NoGuessGenerator for a layout that can be solved from that click
+    //      without guessing, searching on several threads for at most
+    //      NoGuessGenerator.DEFAULT_BUDGET_MILLIS. The candidates are seeded
+    //      from the Game's generator, so seeded games stay reproducible. If no
+    //      layout is found in time, an ordinary layout is used.
+
+    //  A Game can be given a BoardPool, which generates layouts in the
+    //      background while the player is still looking at the empty board,
+    //      so the first click usually does not wait for mines to be placed
+    //      and counted or for a no-guess search. Games have no pool unless
+    //      one is set, as only the GUI has an empty board to look at. The
+    //      pool is told which kind of layout to prepare whenever it is set on
+    //      a Game that has not started, or a new Game is made from one that
+    //      has it, or the no-guess option is toggled. Only when the pool has
+    //      no layout that keeps the first click safe is the board populated
+    //      on the spot. Seeded games never use the pool, as its layouts are
+    //      not reproducible.
+
     //  The Game's public methods provide an interface for all operations that
     //      a UI needs to access -- starting a new game, left-clicking a cell,
     //      and right-clicking a cell.
@@ -26,10 +73,22 @@ public class Game {
     public static final int QUESTION_MARKS_ENABLED = 4;
     public static final int AUTO_FLAG_LAST = 8;
     public static final int FLAG_CHORD_ENABLED = 16;
+    public static final int NO_GUESS = 32;
+
+    private static final NoGuessGenerator NO_GUESS_GENERATOR = new NoGuessGenerator();
 
     private final Board board;
     private final UpdateTracker updateTracker;
+    private final UpdateTracker boardChanges;
     private final Difficulty difficulty;
+    private final ArrayList<GameListener> listeners;
+    private final int[][] batches;
+    private final int[] batchSizes;
+    private final IntConsumer changeRecorder;
+    private byte[] reportedViews;
+    private int reportedState;
+    private int reportedMines;
+    private final RandomGenerator random;
     private int gameState;
     private int minesMinusFlags;
     private boolean marksEnabled;
@@ -37,40 +96,94 @@ public class Game {
     private boolean leftClickChord;
     private boolean autoFlagLastCells;
     private boolean flagChordEnabled;
+    private boolean noGuess;
+    private BoardMetrics metrics;
+    private MoveJournal journal;
+    private ReplayRecorder recorder;
+    private BoardPool pool;
+    private int stateBeforeClick, minesBeforeClick, hiddenBeforeClick, viewBeforeClick;
+    private boolean lastClickChanged;
 
     // Used when first starting the game and after changing difficulty.
     public Game(Difficulty diff, byte optionFlags) {
+        this(diff, optionFlags, null);
+    }
+
+    // Used for reproducible games. The seed is turned into a generator by the
+    //      Difficulty, so the same seed gives different boards on different
+    //      difficulties.
+    public Game(Difficulty diff, byte optionFlags, long seed) {
+        this(diff, optionFlags, diff.newGenerator(seed));
+    }
+
+    // Used when the caller supplies its own generator, for example one split
+    //      from a shared SplittableGenerator for each worker thread. A null
+    //      generator means the calling thread's ThreadLocalRandom.
+    public Game(Difficulty diff, byte optionFlags, RandomGenerator generator) {
         difficulty = diff;
-        updateTracker = new UpdateTracker();
-        board = new Board(diff.getRows(), diff.getColumns(), updateTracker);
+        random = generator;
+        updateTracker = new UpdateTracker(diff.getRows(), diff.getColumns());
+        boardChanges = new UpdateTracker(diff.getRows(), diff.getColumns());
+        board = Board.create(diff.getRows(), diff.getColumns(), boardChanges);
+        listeners = new ArrayList<>();
+        batches = new int[GameListener.CELL_EVENT_TYPES][16];
+        batchSizes = new int[GameListener.CELL_EVENT_TYPES];
+        changeRecorder = this::recordChange;
         minesMinusFlags = diff.getMines();
+        reportedMines = minesMinusFlags;
         firstAlwaysBlank = ((optionFlags & FIRST_ALWAYS_BLANK) != 0);
         leftClickChord = ((optionFlags & LEFT_CLICK_CHORD) != 0);
         marksEnabled = ((optionFlags & QUESTION_MARKS_ENABLED) != 0);
         autoFlagLastCells = ((optionFlags & AUTO_FLAG_LAST) != 0);
         flagChordEnabled = ((optionFlags & FLAG_CHORD_ENABLED) != 0);
+        noGuess = ((optionFlags & NO_GUESS) != 0);
         gameState = NOT_STARTED;
+        reportedState = NOT_STARTED;
     }
 
     // Used when starting a new game with the same difficulty as the previous
-    //      game.
+    //      game. The new game keeps drawing from the previous game's
+    //      generator, so a seeded sequence of games stays reproducible. The
+    //      previous game's listeners, journal, recorder and pool are carried
+    //      over to the new game.
     public Game(Game g) {
         difficulty = g.difficulty;
-        updateTracker = new UpdateTracker();
-        board = new Board(difficulty.getRows(), difficulty.getColumns(), updateTracker);
+        random = g.random;
+        updateTracker = new UpdateTracker(difficulty.getRows(), difficulty.getColumns());
+        boardChanges = new UpdateTracker(difficulty.getRows(), difficulty.getColumns());
+        board = Board.create(difficulty.getRows(), difficulty.getColumns(), boardChanges);
+        listeners = new ArrayList<>(g.listeners);
+        batches = new int[GameListener.CELL_EVENT_TYPES][16];
+        batchSizes = new int[GameListener.CELL_EVENT_TYPES];
+        changeRecorder = this::recordChange;
         minesMinusFlags = difficulty.getMines();
+        reportedMines = minesMinusFlags;
         firstAlwaysBlank = g.firstAlwaysBlank;
         leftClickChord = g.leftClickChord;
         marksEnabled = g.marksEnabled;
         autoFlagLastCells = g.autoFlagLastCells;
         flagChordEnabled = g.flagChordEnabled;
+        noGuess = g.noGuess;
+        journal = g.journal;
+        recorder = g.recorder;
+        pool = g.pool;
         gameState = NOT_STARTED;
+        reportedState = NOT_STARTED;
+        if (!listeners.isEmpty())
+            resetReportedViews();
+        prepareLayouts();
     }
 
     public int getGameState() {
         return gameState;
     }
 
+    //  Whether the last click made changed anything, so that callers can skip
+    //      work after clicks that did nothing.
+    public boolean getLastClickChanged() {
+        return lastClickChanged;
+    }
+
     public int getMinesRemaining() {
         return minesMinusFlags;
     }
@@ -79,6 +192,71 @@ public class Game {
         return updateTracker;
     }
 
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    //  Returns the metrics of the board, measured the first time they are
+    //      asked for, or null if the board has not been populated yet.
+    public BoardMetrics getBoardMetrics() {
+        if (gameState == NOT_STARTED)
+            return null;
+        if (metrics == null)
+            metrics = BoardMetrics.measure(board);
+        return metrics;
+    }
+
+    public void addGameListener(GameListener listener) {
+        if (listeners.isEmpty())
+            resetReportedViews();
+        listeners.add(listener);
+    }
+
+    //  The reported view states are only kept up to date while there are
+    //      listeners, so they are dropped with the last one, and taken from
+    //      the board again when a listener is next added.
+    public void removeGameListener(GameListener listener) {
+        listeners.remove(listener);
+        if (listeners.isEmpty())
+            reportedViews = null;
+    }
+
+    //  Takes the view state of every cell as the one last reported. A board
+    //      that has not been populated yet is entirely unrevealed.
+    private void resetReportedViews() {
+        int nCols = difficulty.getColumns();
+        reportedViews = new byte[difficulty.getRows() * nCols];
+        if (gameState == NOT_STARTED) {
+            Arrays.fill(reportedViews, (byte) Cell.UNREVEALED);
+            return;
+        }
+        for (int index=0; index<reportedViews.length; index++)
+            reportedViews[index] = (byte) board.getViewState(index / nCols, index % nCols);
+    }
+
+    //  Sets the MoveJournal that every accepted click is appended to, or null
+    //      for none.
+    public void setJournal(MoveJournal journal) {
+        this.journal = journal;
+    }
+
+    //  Sets the BoardPool that this Game and the new Games made from it take
+    //      their first layout from, or null for none.
+    public void setBoardPool(BoardPool pool) {
+        this.pool = pool;
+        if (gameState == NOT_STARTED)
+            prepareLayouts();
+    }
+
+    //  Sets the ReplayRecorder that records every accepted click, or null for
+    //      none. A game already in progress is recorded from its current
+    //      board.
+    public void setReplayRecorder(ReplayRecorder recorder) {
+        this.recorder = recorder;
+        if (recorder != null && gameState == IN_PROGRESS)
+            recorder.resumeGame(this);
+    }
+
     // Extra code in this option toggle clears all existing question marks when
     //      the option is disabled. The check for a not-yet-started game
     //      prevents a NullPointerException.
@@ -86,6 +264,8 @@ public class Game {
         marksEnabled = !marksEnabled;
         if (!marksEnabled && gameState != NOT_STARTED)
             board.clearQuestionMarks();
+        publishChanges();
+        recordOptions();
     }
 
     public void toggleFirstAlwaysBlank() {
@@ -94,10 +274,19 @@ public class Game {
 
     public void toggleLeftClickChord() {
         leftClickChord = !leftClickChord;
+        recordOptions();
     }
 
     public void toggleFlagChordEnabled() {
         flagChordEnabled = !flagChordEnabled;
+        recordOptions();
+    }
+
+    //  Only affects a game that has not started yet, as the mines of a
+    //      started game are already placed.
+    public void toggleNoGuess() {
+        noGuess = !noGuess;
+        prepareLayouts();
     }
 
     //  When auto-flagging is enabled, in addition to the simple toggle, the
@@ -107,12 +296,33 @@ public class Game {
         autoFlagLastCells = !autoFlagLastCells;
         if (autoFlagLastCells)
             updateWinCondition();
+        publishChanges();
+        recordOptions();
     }
 
     public boolean getLeftClickChord() {
         return leftClickChord;
     }
 
+    //  Returns the option flags packed the same way as the constructor takes
+    //      them.
+    public byte getOptionFlags() {
+        byte flags = 0;
+        if (firstAlwaysBlank)
+            flags |= FIRST_ALWAYS_BLANK;
+        if (leftClickChord)
+            flags |= LEFT_CLICK_CHORD;
+        if (marksEnabled)
+            flags |= QUESTION_MARKS_ENABLED;
+        if (autoFlagLastCells)
+            flags |= AUTO_FLAG_LAST;
+        if (flagChordEnabled)
+            flags |= FLAG_CHORD_ENABLED;
+        if (noGuess)
+            flags |= NO_GUESS;
+        return flags;
+    }
+
     public boolean getFlagChordEnabled() {
         return flagChordEnabled;
     }
@@ -131,6 +341,46 @@ public class Game {
         board.flagAllUnrevealed();
     }
 
+    //  Returns the generator used to populate the board, falling back to the
+    //      current thread's generator when the Game was not given one.
+    private RandomGenerator getGenerator() {
+        if (random == null)
+            return ThreadLocalRandom.current();
+        return random;
+    }
+
+    //  Tells the BoardPool which kind of layout this Game will need, if the
+    //      Game takes its layouts from a pool.
+    private void prepareLayouts() {
+        if (pool != null && random == null)
+            pool.prepare(difficulty, noGuess);
+    }
+
+    //  Populates the board from the BoardPool, and returns false if the Game
+    //      does not use the pool or the pool had no fitting layout.
+    private boolean populateFromPool(int row, int col) {
+        if (pool == null || random != null)
+            return false;
+        byte[] layout = pool.take(difficulty, noGuess, firstAlwaysBlank, row, col);
+        if (layout == null)
+            return false;
+        board.populateBoard(layout);
+        return true;
+    }
+
+    //  Populates the board with a layout that can be solved without guessing
+    //      from a first click at the given position, or with an ordinary
+    //      layout if none is found within the time budget.
+    private void populateNoGuess(int row, int col) {
+        RandomGenerator generator = getGenerator();
+        OptionalLong seed = NO_GUESS_GENERATOR.findSeed(difficulty.getRows(), difficulty.getColumns(),
+                minesMinusFlags, row, col, firstAlwaysBlank, generator.nextLong(),
+                NoGuessGenerator.DEFAULT_BUDGET_MILLIS);
+        if (seed.isPresent())
+            generator = new SplittableRandom(seed.getAsLong());
+        board.populateBoard(row, col, minesMinusFlags, firstAlwaysBlank, generator);
+    }
+
     //  Called whenever a cell is left-clicked. If the board is empty, the
     //      board is populated, passing the row and column coordinates of
     //      this first click along to the populateBoard method in order to
@@ -138,10 +388,17 @@ public class Game {
     //      After checking for an empty board, the cell is clicked, and this
     //      method sets the game state flag accordingly.
     public void leftClickCell(int row, int col) {
+        lastClickChanged = false;
         if (gameState > IN_PROGRESS) // Game over
             return;
+        beginClick(row, col);
         if (gameState == NOT_STARTED) {
-            board.populateBoard(row, col, minesMinusFlags, firstAlwaysBlank);
+            if (!populateFromPool(row, col)) {
+                if (noGuess)
+                    populateNoGuess(row, col);
+                else
+                    board.populateBoard(row, col, minesMinusFlags, firstAlwaysBlank, getGenerator());
+            }
             gameState = IN_PROGRESS;
         }
         if (leftClickChord && board.checkChord(row, col) != Board.NO_CHORD) {
@@ -152,6 +409,8 @@ public class Game {
             gameState = OVER_LOSS;
         }
         updateWinCondition();
+        publishChanges();
+        recordClick(MoveJournal.LEFT_CLICK, row, col);
     }
 
     // Called whenever a cell is right-clicked. If the board is empty, the
@@ -162,10 +421,12 @@ public class Game {
     //      variable. If the player has flagged all mines and revealed all
     //      non-flagged cells, the game state flag is set accordingly.
     public void rightClickCell(int row, int col) {
+        lastClickChanged = false;
         if (gameState > IN_PROGRESS) // Game over
             return;
+        beginClick(row, col);
         if (gameState == NOT_STARTED) {
-            board.populateBoard(-2, -2, minesMinusFlags, firstAlwaysBlank);
+            board.populateBoard(-2, -2, minesMinusFlags, firstAlwaysBlank, getGenerator());
             gameState = IN_PROGRESS;
         }
         int rClickResult = board.rightClickCell(row, col, marksEnabled);
@@ -174,6 +435,8 @@ public class Game {
         else if (rClickResult == Cell.FLAG_CLEARED)
             minesMinusFlags++;
         updateWinCondition();
+        publishChanges();
+        recordClick(MoveJournal.RIGHT_CLICK, row, col);
     }
 
     // Called from the GUI whenever a chord click is performed, or from
@@ -183,11 +446,13 @@ public class Game {
     //      either does nothing or invokes the board's left or right chord
     //      click methods. Sets game state according to the result.
     public void chordClickCell(int row, int col) {
+        lastClickChanged = false;
         if (gameState > IN_PROGRESS)
             return;
         int chordType = board.checkChord(row, col);
         if (chordType == Board.NO_CHORD)
             return;
+        beginClick(row, col);
         if (flagChordEnabled && chordType == Board.FLAG_CHORD)
             minesMinusFlags -= board.chordClickRight(row, col);
         else if (chordType == Board.REVEAL_CHORD && board.chordClickLeft(row, col)) {
@@ -195,6 +460,180 @@ public class Game {
             gameState = OVER_LOSS;
         }
         updateWinCondition();
+        publishChanges();
+        recordClick(MoveJournal.CHORD_CLICK, row, col);
+    }
+
+    //  Notes what a click is about to change, so that recordClick can tell
+    //      afterwards whether it changed anything. Every click that changes
+    //      the board changes the game state, the number of mines remaining,
+    //      the number of hidden unflagged cells, or at least the view state
+    //      of the clicked cell, which is all a question mark being removed
+    //      changes.
+    private void beginClick(int row, int col) {
+        stateBeforeClick = gameState;
+        minesBeforeClick = minesMinusFlags;
+        hiddenBeforeClick = board.getHiddenUnflagged();
+        viewBeforeClick = (gameState == NOT_STARTED) ? Cell.UNREVEALED : board.getViewState(row, col);
+    }
+
+    //  Passes a click that has just been made to the journal and the replay
+    //      recorder, if there are any, unless it changed nothing, as clicks
+    //      on revealed cells and chords next to nothing left to reveal do.
+    //      A left click turned into a chord by the left-click chord option is
+    //      recorded as the chord it became.
+    private void recordClick(int click, int row, int col) {
+        if (gameState == stateBeforeClick && minesMinusFlags == minesBeforeClick &&
+                board.getHiddenUnflagged() == hiddenBeforeClick &&
+                board.getViewState(row, col) == viewBeforeClick)
+            return;
+        lastClickChanged = true;
+        int index = row*difficulty.getColumns() + col;
+        if (journal != null)
+            journal.record(this, click, index);
+        if (recorder != null)
+            recorder.record(this, click, index);
+    }
+
+    //  Tells the journal and the replay recorder, if there are any, that an
+    //      option that changes what clicks do has been toggled.
+    private void recordOptions() {
+        if (journal != null)
+            journal.optionsChanged(this);
+        if (recorder != null)
+            recorder.optionsChanged(this);
+    }
+
+    //  Returns a copy of the board's layout, for the replay recorder. Only
+    //      meaningful once the game has started.
+    byte[] getLayout() {
+        return board.getLayout();
+    }
+
+    //  Called at the end of every operation that can change the board. Moves
+    //      the cells changed by the board into the GUI's UpdateTracker, and,
+    //      if any listeners are registered, sorts them into batches and
+    //      reports the batches, followed by any change to the number of mines
+    //      remaining and to the game state.
+    private void publishChanges() {
+        boardChanges.forEachDirty(changeRecorder);
+        if (listeners.isEmpty()) {
+            reportedMines = minesMinusFlags;
+            reportedState = gameState;
+            return;
+        }
+        for (int type=0; type<GameListener.CELL_EVENT_TYPES; type++) {
+            if (batchSizes[type] == 0)
+                continue;
+            for (GameListener listener : listeners)
+                listener.cellsChanged(type, batches[type], batchSizes[type]);
+            batchSizes[type] = 0;
+        }
+        if (reportedMines != minesMinusFlags) {
+            reportedMines = minesMinusFlags;
+            for (GameListener listener : listeners)
+                listener.minesRemainingChanged(minesMinusFlags);
+        }
+        if (reportedState != gameState) {
+            reportedState = gameState;
+            for (GameListener listener : listeners)
+                listener.gameStateChanged(gameState);
+        }
+    }
+
+    //  Passes one changed cell on to the GUI's tracker, and adds it to the
+    //      batch matching its new view state when there are listeners and
+    //      the view state is not the one last reported for the cell.
+    private void recordChange(int index) {
+        updateTracker.markDirty(index);
+        if (listeners.isEmpty())
+            return;
+        int nCols = difficulty.getColumns();
+        int view = board.getViewState(index / nCols, index % nCols);
+        if (reportedViews[index] == view)
+            return;
+        reportedViews[index] = (byte) view;
+        int type;
+        switch (view) {
+            case Cell.UNREVEALED:
+                type = GameListener.CELLS_HIDDEN;
+                break;
+            case Cell.FLAGGED:
+                type = GameListener.CELLS_FLAGGED;
+                break;
+            case Cell.QUESTION_MARKED:
+                type = GameListener.CELLS_QUESTION_MARKED;
+                break;
+            case Cell.FALSE_FLAGGED:
+            case Cell.REVEALED_MINE:
+            case Cell.EXPLODED_MINE:
+                type = GameListener.CELLS_MINES_SHOWN;
+                break;
+            default:
+                type = GameListener.CELLS_REVEALED;
+        }
+        int[] batch = batches[type];
+        if (batchSizes[type] == batch.length)
+            batches[type] = batch = Arrays.copyOf(batch, batch.length * 2);
+        batch[batchSizes[type]++] = index;
+    }
+
+    //  Records this game in a GameSnapshot, along with the seconds on the
+    //      GUI's timer, which the Game itself does not keep. Only a game in
+    //      progress can be recorded.
+    public GameSnapshot snapshot(int elapsedSeconds) {
+        if (gameState != IN_PROGRESS)
+            throw new IllegalStateException("only a game in progress can be recorded");
+        return GameSnapshot.of(difficulty, getOptionFlags(), minesMinusFlags, elapsedSeconds,
+                board.getCellStates());
+    }
+
+    //  Called by GameSnapshot on a new Game to put it into a recorded state.
+    //      The board is populated with the recorded mines and brought into
+    //      the recorded state through its ordinary click methods, so that
+    //      every count the Board keeps is exactly what it would be had the
+    //      game been played. Clicking a revealed blank cell spreads to its
+    //      neighbors, so the cells around revealed blank cells that are not
+    //      revealed themselves, and every cell to be flagged or question
+    //      marked, are flagged first. Once the revealed cells are clicked,
+    //      the flags that should not be there are removed again, or turned
+    //      into question marks.
+    void restore(BitSet mines, byte[] states, int minesRemaining) {
+        int nRows = difficulty.getRows();
+        int nCols = difficulty.getColumns();
+        board.populateBoard(mines);
+        byte[] layout = board.getLayout();
+        boolean[] guarded = new boolean[states.length];
+        for (int row=0; row<nRows; row++)
+            for (int col=0; col<nCols; col++) {
+                int index = row*nCols + col;
+                if (states[index] != GameSnapshot.REVEALED) {
+                    guarded[index] |= states[index] != GameSnapshot.HIDDEN;
+                    continue;
+                }
+                if (layout[index] != 0)
+                    continue;
+                for (int i=Math.max(row-1, 0); i<=Math.min(row+1, nRows-1); i++)
+                    for (int j=Math.max(col-1, 0); j<=Math.min(col+1, nCols-1); j++)
+                        if (states[i*nCols + j] != GameSnapshot.REVEALED)
+                            guarded[i*nCols + j] = true;
+            }
+        for (int index=0; index<states.length; index++)
+            if (guarded[index])
+                board.rightClickCell(index / nCols, index % nCols, false);
+        for (int index=0; index<states.length; index++)
+            if (states[index] == GameSnapshot.REVEALED)
+                board.leftClickCell(index / nCols, index % nCols);
+        for (int index=0; index<states.length; index++)
+            if (guarded[index] && states[index] != GameSnapshot.FLAGGED)
+                board.rightClickCell(index / nCols, index % nCols, states[index] == GameSnapshot.QUESTION_MARKED);
+        minesMinusFlags = minesRemaining;
+        reportedMines = minesRemaining;
+        gameState = IN_PROGRESS;
+        reportedState = IN_PROGRESS;
+        boardChanges.forEachDirty(index -> {});
+        if (!listeners.isEmpty())
+            resetReportedViews();
     }
 
     //  Simply calls the board's getViewState method. Used by the GUI to
@@ -203,6 +642,16 @@ public class Game {
         return board.getViewState(row, col);
     }
 
+    //  Return the board's counts of flagged and of hidden, unflagged cells
+    //      around a cell. Used by the GUI to preview chord clicks.
+    public int getFlagsAdjacent(int row, int col) {
+        return board.getFlagsAdjacent(row, col);
+    }
+
+    public int getHiddenAdjacent(int row, int col) {
+        return board.getHiddenAdjacent(row, col);
+    }
+
     //  Used to print the board, for debugging and functionality testing before
     //      the implementation of the GUI. Left in for documentation purposes.
     public void printBoard() {
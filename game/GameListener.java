@@ -0,0 +1,50 @@
+package game;
+
+public interface GameListener {
+
+    //  A GameListener is told about every change a Game makes, without
+    //      having to poll the Game's UpdateTracker. It is meant for consumers
+    //      that have no board to draw, such as bots, servers, and recorders.
+    //      Listeners are registered with Game.addGameListener, and every
+    //      method has an empty default, so a listener only implements the
+    //      events it cares about.
+
+    //  Changed cells are delivered in batches, one batch per type of change
+    //      per click. A batch is an array of flat cell indexes, row*nCols +
+    //      col, of which only the first count entries are valid. The array
+    //      is reused by the Game for the next batch, so a listener that wants
+    //      to keep the indexes must copy them before returning. A cascade that
+    //      reveals fifty thousand cells arrives as a single call.
+
+    //  Cells whose view state became a number from 0 to 8.
+    int CELLS_REVEALED = 0;
+
+    //  Cells that became flagged, by a right click, a flag chord, or the
+    //      automatic flagging at the end of a won game.
+    int CELLS_FLAGGED = 1;
+
+    //  Cells that became question marked.
+    int CELLS_QUESTION_MARKED = 2;
+
+    //  Cells that went back to plain unrevealed, because a flag or question
+    //      mark was removed.
+    int CELLS_HIDDEN = 3;
+
+    //  Mines, the exploded mine, and false flags shown when a game is lost.
+    int CELLS_MINES_SHOWN = 4;
+
+    int CELL_EVENT_TYPES = 5;
+
+    default void cellsChanged(int type, int[] cells, int count) {
+    }
+
+    //  Called with the mines-minus-flags count whenever it changes.
+    default void minesRemainingChanged(int minesRemaining) {
+    }
+
+    //  Called with the new game state, one of the state constants in Game,
+    //      whenever it changes, including when the game is won or lost.
+    default void gameStateChanged(int gameState) {
+    }
+
+}
@@ -0,0 +1,279 @@
+package game;
+
+import board.Board;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.BitSet;
+
+public final class GameSnapshot {
+
+    //  A GameSnapshot records a game in progress, so that it can be resumed
+    //      after the window is closed: the difficulty, the option flags, the
+    //      number of mines minus flags, the seconds on the timer, and every
+    //      cell of the board. Only games in progress are recorded. A game
+    //      that has not started has nothing to record, and a finished game
+    //      has nothing to resume.
+
+    //  During a game, a cell is either a mine or not, and is hidden,
+    //      revealed, flagged or question marked, as cells are never flagged
+    //      once revealed and mines are never revealed until the game is lost.
+    //      The board is stored as two planes. The mine plane holds one bit
+    //      per cell, and is stored as it is, as mines are scattered at
+    //      random and would not compress. The state plane holds the other
+    //      two bits of each cell. Its runs are long, as a game reveals whole
+    //      areas at a time and most of the rest is still hidden, so it is
+    //      stored as runs: one varint per run, holding the length of the run
+    //      minus one shifted left by two, and the state in the low two bits.
+    //      If a board is so fragmented that the runs take more room than the
+    //      states themselves, the states are stored packed four to a byte
+    //      instead. A board therefore never takes more than three bits per
+    //      cell, and usually little more than one.
+
+    //  The adjacent mine counts are not stored, as the board counts them
+    //      again when the mines are placed. A snapshot is framed and checked
+    //      like every other file of the game, as described in SaveFormat, and
+    //      the body holds:
+    //
+    //          difficulty  the difficulty
+    //          byte        option flags, as returned by Game.getOptionFlags
+    //          int         mines minus flags
+    //          int         seconds on the timer
+    //          int         length of the mine plane, then the mine plane
+    //          byte        RUNS or PACKED
+    //          int         length of the state plane, then the state plane
+
+    public static final Path SNAPSHOT_FILE = Paths.get("jMinesweeper.game");
+
+    static final int HIDDEN = 0;
+    static final int REVEALED = 1;
+    static final int FLAGGED = 2;
+    static final int QUESTION_MARKED = 3;
+
+    private static final int MAGIC = 0x4A4D5347;
+    private static final short FORMAT_VERSION = 1;
+    private static final byte RUNS = 0;
+    private static final byte PACKED = 1;
+
+    private static final int MINE_SHIFT = Integer.numberOfTrailingZeros(Board.LAYOUT_MINE);
+    private static final int STATE_SHIFT = Integer.numberOfTrailingZeros(Board.STATE_REVEALED);
+
+    //  The code of each combination of the state bits, which are the top
+    //      bits of a cell. A revealed cell is never flagged, and a flagged
+    //      cell is never question marked, so the order of the tests only
+    //      matters for cells that cannot occur.
+    private static final byte[] CODES = new byte[256 >>> STATE_SHIFT];
+
+    static {
+        for (int i=0; i<CODES.length; i++) {
+            int cell = i << STATE_SHIFT;
+            if ((cell & Board.STATE_REVEALED) != 0)
+                CODES[i] = REVEALED;
+            else if ((cell & Board.STATE_FLAGGED) != 0)
+                CODES[i] = FLAGGED;
+            else if ((cell & Board.STATE_QUESTION_MARKED) != 0)
+                CODES[i] = QUESTION_MARKED;
+        }
+    }
+
+    private final Difficulty difficulty;
+    private final byte optionFlags;
+    private final int minesMinusFlags;
+    private final int elapsedSeconds;
+    private final BitSet mines;
+    private final byte[] states;
+
+    private GameSnapshot(Difficulty diff, byte optionFlags, int minesMinusFlags, int elapsedSeconds,
+                         BitSet mines, byte[] states) {
+        difficulty = diff;
+        this.optionFlags = optionFlags;
+        this.minesMinusFlags = minesMinusFlags;
+        this.elapsedSeconds = elapsedSeconds;
+        this.mines = mines;
+        this.states = states;
+    }
+
+    //  Records a game in progress from the cell states of its board. The
+    //      state bits of a cell index a table of codes, and the mine bits
+    //      are shifted into whole words, so the scan has no branches to
+    //      mispredict and keeps up with very large boards.
+    static GameSnapshot of(Difficulty diff, byte optionFlags, int minesMinusFlags, int elapsedSeconds,
+                           byte[] cellStates) {
+        long[] mineWords = new long[(cellStates.length + 63) >>> 6];
+        byte[] states = new byte[cellStates.length];
+        for (int w=0; w<mineWords.length; w++) {
+            int start = w << 6;
+            int length = Math.min(64, cellStates.length - start);
+            long bits = 0;
+            for (int bit=0; bit<length; bit++) {
+                int cell = cellStates[start + bit] & 0xFF;
+                bits |= (long) ((cell & Board.LAYOUT_MINE) >>> MINE_SHIFT) << bit;
+                states[start + bit] = CODES[cell >>> STATE_SHIFT];
+            }
+            mineWords[w] = bits;
+        }
+        return new GameSnapshot(diff, optionFlags, minesMinusFlags, elapsedSeconds, BitSet.valueOf(mineWords),
+                states);
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public int getElapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    //  Returns a new Game in exactly the recorded state.
+    public Game restore() {
+        Game game = new Game(difficulty, optionFlags);
+        game.restore(mines, states, minesMinusFlags);
+        return game;
+    }
+
+    //  Reads the snapshot in SNAPSHOT_FILE, or returns null if there is none.
+    public static GameSnapshot loadFromFile() {
+        if (!Files.exists(SNAPSHOT_FILE))
+            return null;
+        try {
+            return fromBytes(ByteBuffer.wrap(Files.readAllBytes(SNAPSHOT_FILE)));
+        } catch (IOException e) {
+            System.err.println("Error: could not read " + SNAPSHOT_FILE + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    byte[] toBytes() {
+        byte[] mineBytes = mines.toByteArray();
+        byte[] runs = encodeRuns(states);
+        boolean packed = runs == null;
+        byte[] plane = packed ? pack(states) : runs;
+        return SaveFormat.frame(MAGIC, FORMAT_VERSION, body -> {
+            SaveFormat.writeDifficulty(body, difficulty);
+            body.writeByte(optionFlags);
+            body.writeInt(minesMinusFlags);
+            body.writeInt(elapsedSeconds);
+            body.writeInt(mineBytes.length);
+            body.write(mineBytes);
+            body.writeByte(packed ? PACKED : RUNS);
+            body.writeInt(plane.length);
+            body.write(plane);
+        });
+    }
+
+    static GameSnapshot fromBytes(ByteBuffer bytes) throws IOException {
+        ByteBuffer in = SaveFormat.unframe(bytes, MAGIC, FORMAT_VERSION);
+        try {
+            Difficulty diff = SaveFormat.readDifficulty(in);
+            long cellCount = (long) diff.getRows() * diff.getColumns();
+            if (diff.getRows() <= 0 || diff.getColumns() <= 0 || cellCount > Integer.MAX_VALUE - 8)
+                throw new IOException("invalid board size");
+            int cells = (int) cellCount;
+            byte optionFlags = in.get();
+            int minesMinusFlags = in.getInt();
+            int elapsedSeconds = in.getInt();
+            byte[] mineBytes = new byte[in.getInt()];
+            in.get(mineBytes);
+            BitSet mines = BitSet.valueOf(mineBytes);
+            if (mines.length() > cells)
+                throw new IOException("mine outside the board");
+            byte encoding = in.get();
+            byte[] plane = new byte[in.getInt()];
+            in.get(plane);
+            byte[] states;
+            if (encoding == RUNS)
+                states = decodeRuns(plane, cells);
+            else if (encoding == PACKED && plane.length == (cells + 3) >>> 2)
+                states = unpack(plane, cells);
+            else
+                throw new IOException("malformed state plane");
+
+            //  A snapshot is only taken during a game, so no mine is revealed,
+            //      and the flags match the count of mines remaining.
+            int flags = 0;
+            for (int i=0; i<cells; i++) {
+                if (states[i] == REVEALED && mines.get(i))
+                    throw new IOException("revealed mine");
+                if (states[i] == FLAGGED)
+                    flags++;
+            }
+            if (minesMinusFlags != diff.getMines() - flags)
+                throw new IOException("flag count does not match");
+            return new GameSnapshot(diff, optionFlags, minesMinusFlags, elapsedSeconds, mines, states);
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("malformed snapshot", e);
+        }
+    }
+
+    //  Returns the runs of the states, or null if they would take more room
+    //      than the states packed four to a byte.
+    private static byte[] encodeRuns(byte[] states) {
+        int limit = (states.length + 3) >>> 2;
+        byte[] runs = new byte[Math.min(limit, 64)];
+        int length = 0;
+        int start = 0;
+        while (start < states.length) {
+            int state = states[start];
+            int end = start + 1;
+            while (end < states.length && states[end] == state)
+                end++;
+            long value = ((long) (end - start - 1) << 2) | state;
+            do {
+                if (length == limit)
+                    return null;
+                if (length == runs.length)
+                    runs = Arrays.copyOf(runs, Math.min(limit, runs.length * 2));
+                int next = (int) (value & 0x7F);
+                value >>>= 7;
+                runs[length++] = (byte) ((value != 0) ? next | 0x80 : next);
+            } while (value != 0);
+            start = end;
+        }
+        return Arrays.copyOf(runs, length);
+    }
+
+    private static byte[] decodeRuns(byte[] runs, int cells) throws IOException {
+        byte[] states = new byte[cells];
+        int position = 0;
+        int cell = 0;
+        while (position < runs.length) {
+            long value = 0;
+            int shift = 0;
+            int next;
+            do {
+                if (position == runs.length || shift > 35)
+                    throw new IOException("malformed run");
+                next = runs[position++];
+                value |= (long) (next & 0x7F) << shift;
+                shift += 7;
+            } while ((next & 0x80) != 0);
+            long run = (value >>> 2) + 1;
+            if (run > cells - cell)
+                throw new IOException("runs overflow the board");
+            Arrays.fill(states, cell, cell + (int) run, (byte) (value & 3));
+            cell += (int) run;
+        }
+        if (cell != cells)
+            throw new IOException("runs do not cover the board");
+        return states;
+    }
+
+    private static byte[] pack(byte[] states) {
+        byte[] packed = new byte[(states.length + 3) >>> 2];
+        for (int i=0; i<states.length; i++)
+            packed[i >>> 2] |= (byte) (states[i] << ((i & 3) << 1));
+        return packed;
+    }
+
+    private static byte[] unpack(byte[] packed, int cells) {
+        byte[] states = new byte[cells];
+        for (int i=0; i<cells; i++)
+            states[i] = (byte) ((packed[i >>> 2] >>> ((i & 3) << 1)) & 3);
+        return states;
+    }
+
+}
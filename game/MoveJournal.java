@@ -0,0 +1,295 @@
+package game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+public final class MoveJournal implements AutoCloseable {
+
+    //  A MoveJournal is a write-ahead log of the clicks made in a game, so
+    //      that a game can be rebuilt after a crash, even one that happens
+    //      between two snapshots. A Game given a journal with setJournal
+    //      reports every left, right and chord click it accepts, and the
+    //      journal appends each one as a fixed-width record to a file mapped
+    //      into memory. Appending a record is only a few stores into the
+    //      mapping, and once made it survives the process being killed, as
+    //      the mapped pages belong to the operating system.
+
+    //  Surviving a power failure takes a sync, which is far too slow to make
+    //      on every click of a bot playing thousands of moves a second. The
+    //      records are instead committed in groups: a background thread
+    //      syncs every record appended since the last commit, at most once
+    //      every COMMIT_INTERVAL_MILLIS, so a crash of the whole machine loses
+    //      at most the clicks of the last interval. commit syncs at once, for
+    //      use when the game exits.
+
+    //  Records only make sense on top of the game they were made in, so every
+    //      journal file starts with a checkpoint: a complete GameSnapshot of
+    //      the game, taken after its first click. A new checkpoint is taken
+    //      when a different game reports a click, when the game's options
+    //      are toggled, as clicks depend on them and clearing question marks
+    //      changes the board without a click, and when the file is full.
+    //      Each checkpoint starts a new file, which is written in full and
+    //      moved over the old one, so there is always one complete
+    //      checkpoint on disk. A game that is over, or a journal that is
+    //      discarded, leaves nothing to recover.
+
+    //  A journal file holds:
+    //
+    //          header      framed and checked like every other file of the
+    //                      game, as described in SaveFormat, with a body of:
+    //                          int     capacity, the number of records
+    //                          int     length of the checkpoint
+    //                          the checkpoint, as written by GameSnapshot
+    //          padding     up to a multiple of RECORD_BYTES
+    //          records     capacity records of four ints each:
+    //                          int     sequence number, counting from 1
+    //                          int     cell, as row*nCols + col
+    //                          int     seconds on the timer << 2 | click
+    //                          int     check of the other three
+    //
+    //      The file is created at its full size, so the unused records are
+    //      zero. A record is valid if its sequence number is the next one
+    //      expected and its check matches, so recovery stops at the first
+    //      record that was never written or was torn by the crash.
+
+    public static final Path JOURNAL_FILE = Paths.get("jMinesweeper.journal");
+    public static final int DEFAULT_CAPACITY = 65536;
+    public static final long COMMIT_INTERVAL_MILLIS = 20;
+
+    public static final int LEFT_CLICK = 0;
+    public static final int RIGHT_CLICK = 1;
+    public static final int CHORD_CLICK = 2;
+
+    static final int RECORD_BYTES = 16;
+
+    private static final int MAGIC = 0x4A4D534A;
+    private static final short FORMAT_VERSION = 1;
+
+    private final Path file;
+    private final int capacity;
+    private final IntSupplier elapsedSeconds;
+    private final ScheduledExecutorService committer;
+
+    //  The file currently being appended to. Records are appended on the
+    //      game's thread, and appended is published after each record is
+    //      written, so the committer only ever syncs complete records.
+    private FileChannel channel;
+    private MappedByteBuffer mapping;
+    private int recordsStart;
+    private volatile int appended;
+    private int committed;
+
+    private Game checkpointed;
+    private boolean failed;
+
+    //  The elapsed seconds are read whenever a checkpoint or record is made,
+    //      from the GUI's timer for example. Bots with no timer can pass
+    //      () -> 0.
+    public MoveJournal(Path file, int capacity, IntSupplier elapsedSeconds) {
+        this.file = file;
+        this.capacity = capacity;
+        this.elapsedSeconds = elapsedSeconds;
+        committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MoveJournal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        committer.scheduleWithFixedDelay(this::commit, COMMIT_INTERVAL_MILLIS, COMMIT_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    //  Called by a Game after every click it accepts. The click has already
+    //      been made, so a checkpoint taken here includes it.
+    void record(Game game, int click, int cell) {
+        if (failed)
+            return;
+        if (game.getGameState() != Game.IN_PROGRESS) {
+            discard();
+            return;
+        }
+        if (game != checkpointed || appended == capacity) {
+            checkpoint(game);
+            return;
+        }
+        int position = recordsStart + appended * RECORD_BYTES;
+        int sequence = appended + 1;
+        int action = (elapsedSeconds.getAsInt() << 2) | click;
+        mapping.putInt(position, sequence);
+        mapping.putInt(position + 4, cell);
+        mapping.putInt(position + 8, action);
+        mapping.putInt(position + 12, check(sequence, cell, action));
+        appended = sequence;
+    }
+
+    //  Starts a new journal file from a snapshot of the game. The file is
+    //      written and synced in full before it replaces the old one, and is
+    //      then mapped to append the records that follow.
+    private void checkpoint(Game game) {
+        byte[] snapshot = game.snapshot(elapsedSeconds.getAsInt()).toBytes();
+        byte[] header = SaveFormat.frame(MAGIC, FORMAT_VERSION, body -> {
+            body.writeInt(capacity);
+            body.writeInt(snapshot.length);
+            body.write(snapshot);
+        });
+        int start = (header.length + RECORD_BYTES - 1) / RECORD_BYTES * RECORD_BYTES;
+        try {
+            synchronized (this) {
+                closeChannel();
+                SaveState.writeAtomically(file, header);
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        start + (long) capacity * RECORD_BYTES);
+                channel.force(true);
+                recordsStart = start;
+                appended = 0;
+                committed = 0;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.out.println("Error: could not write " + file + ", moves will not be journaled");
+            failed = true;
+            return;
+        }
+        checkpointed = game;
+    }
+
+    //  Called by a Game when one of its options is toggled. If the journal
+    //      holds that game, it is checkpointed again with its new options,
+    //      or discarded if toggling auto-flagging has just won it.
+    void optionsChanged(Game game) {
+        if (failed || game != checkpointed)
+            return;
+        if (game.getGameState() == Game.IN_PROGRESS)
+            checkpoint(game);
+        else
+            discard();
+    }
+
+    //  Syncs every record appended since the last commit. Runs on the
+    //      committer thread every COMMIT_INTERVAL_MILLIS, and may be called
+    //      directly to make sure every click so far is on disk.
+    public synchronized void commit() {
+        int upTo = appended;
+        if (mapping == null || upTo == committed)
+            return;
+        mapping.force(recordsStart + committed * RECORD_BYTES, (upTo - committed) * RECORD_BYTES);
+        committed = upTo;
+    }
+
+    //  Empties the journal, so that there is nothing to recover, when the
+    //      game it holds is over or abandoned for a new one. The magic number
+    //      of the mapped file is cleared in place, and the file is replaced
+    //      at the next checkpoint. A file left by an earlier run, which is
+    //      not mapped, is simply deleted.
+    public synchronized void discard() {
+        checkpointed = null;
+        if (mapping == null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+        mapping.putInt(0, 0);
+        mapping.force(0, Integer.BYTES);
+        closeChannel();
+    }
+
+    private void closeChannel() {
+        mapping = null;
+        appended = 0;
+        committed = 0;
+        if (channel == null)
+            return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        channel = null;
+    }
+
+    //  Commits the remaining records and stops the committer thread.
+    @Override
+    public void close() {
+        committer.shutdown();
+        commit();
+        synchronized (this) {
+            closeChannel();
+        }
+    }
+
+    //  Rebuilds the game held in a journal file, by restoring its checkpoint
+    //      and replaying every valid record on top of it. Returns a snapshot
+    //      of the rebuilt game, with the timer as of the last record, or null
+    //      if there is no journal, it was discarded, or its game was over.
+    public static GameSnapshot recover(Path file) {
+        if (!Files.exists(file))
+            return null;
+        try {
+            ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (bytes.remaining() >= Integer.BYTES && bytes.getInt(0) == 0)
+                return null;
+            ByteBuffer in = SaveFormat.unframe(bytes, MAGIC, FORMAT_VERSION);
+            int capacity = in.getInt();
+            byte[] snapshotBytes = new byte[in.getInt()];
+            in.get(snapshotBytes);
+            GameSnapshot checkpoint = GameSnapshot.fromBytes(ByteBuffer.wrap(snapshotBytes));
+            int start = (in.position() + Integer.BYTES + RECORD_BYTES - 1) / RECORD_BYTES * RECORD_BYTES;
+            Game game = checkpoint.restore();
+            int cells = checkpoint.getDifficulty().getRows() * checkpoint.getDifficulty().getColumns();
+            int nCols = checkpoint.getDifficulty().getColumns();
+            int seconds = checkpoint.getElapsedSeconds();
+            for (int i=0; i<capacity; i++) {
+                int position = start + i * RECORD_BYTES;
+                if (position + RECORD_BYTES > bytes.limit())
+                    break;
+                int sequence = bytes.getInt(position);
+                int cell = bytes.getInt(position + 4);
+                int action = bytes.getInt(position + 8);
+                if (sequence != i + 1 || bytes.getInt(position + 12) != check(sequence, cell, action)
+                        || cell < 0 || cell >= cells)
+                    break;
+                int click = action & 3;
+                if (click == LEFT_CLICK)
+                    game.leftClickCell(cell / nCols, cell % nCols);
+                else if (click == RIGHT_CLICK)
+                    game.rightClickCell(cell / nCols, cell % nCols);
+                else if (click == CHORD_CLICK)
+                    game.chordClickCell(cell / nCols, cell % nCols);
+                else
+                    break;
+                seconds = action >>> 2;
+            }
+            if (game.getGameState() != Game.IN_PROGRESS)
+                return null;
+            return game.snapshot(seconds);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            System.err.println("Error: could not recover " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    //  Mixes the fields of a record, so that a torn or stale record is
+    //      caught by recovery.
+    private static int check(int sequence, int cell, int action) {
+        int h = MAGIC;
+        h = Integer.rotateLeft(h ^ sequence * 0x9E3779B9, 13) * 0x85EBCA6B;
+        h = Integer.rotateLeft(h ^ cell * 0x9E3779B9, 13) * 0x85EBCA6B;
+        h = Integer.rotateLeft(h ^ action * 0x9E3779B9, 13) * 0x85EBCA6B;
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -0,0 +1,395 @@
+package game;
+
+import board.Board;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+public final class ReplayRecorder implements AutoCloseable {
+
+    //  A ReplayRecorder records every game played with it, so that the games
+    //      can be watched or analysed later: the mines of each game, and
+    //      every click made in it with the time it was made. A Game given a
+    //      recorder with setReplayRecorder reports every left, right and
+    //      chord click that changes the game, right after making it, which
+    //      for the GUI is within the mouse handler that received the click.
+
+    //  The recording is a stream of varints, each entry starting with the
+    //      milliseconds since the previous entry. A click then takes one more
+    //      varint, holding the distance from the previous click's cell in
+    //      zigzag form, shifted left by two, with the kind of click in the
+    //      low two bits. Consecutive clicks are usually close together and
+    //      under a few seconds apart, so most clicks take three or four
+    //      bytes, and each board about a byte per mine, which puts an hour
+    //      of expert play at a little over ten kilobytes. Each game stores
+    //      its mines rather than a seed, as a game without a seed of its own
+    //      takes its layout from ThreadLocalRandom or a BoardPool, and no
+    //      seed could rebuild it. A low two bits of EVENT mark the other
+    //      entries instead, whose type is in the rest of the varint:
+    //
+    //          GAME_STARTED    rows, columns, mines and option flags, then
+    //                          the index of each mine as the distance from
+    //                          the previous one. Written before the first
+    //                          click of every game, once the board is
+    //                          populated, and resets the previous cell to 0.
+    //          OPTIONS         the new option flags, when an option that
+    //                          changes what clicks do is toggled.
+    //          GAME_RESUMED    the length of a GameSnapshot, then the
+    //                          snapshot. Written instead of GAME_STARTED for
+    //                          a game that was already in progress when the
+    //                          recorder was given to it, such as a game
+    //                          resumed after the window was closed.
+    //
+    //      A recording file starts with MAGIC and FORMAT_VERSION, and each
+    //      run of the game appends to it. Nothing marks the end of an entry,
+    //      so the buffer is only written out between entries, and a recording
+    //      cut short by a crash is read up to its last complete entry.
+
+    //  The recording file does not grow without limit. Whenever a game starts
+    //      and the file has already reached maxBytes, it is moved to the
+    //      previous recording file, replacing the one there, and a new
+    //      recording file is started. Both files are complete recordings, so
+    //      at most about twice maxBytes of games are kept.
+
+    //  Entries are encoded into a direct buffer allocated once, and written
+    //      to the file through a FileChannel whenever the buffer is nearly
+    //      full, whenever a game ends, and on close. Recording a click
+    //      allocates nothing. Only starting a game copies its layout, or
+    //      snapshot, as populating the board already allocates far more.
+
+    public static final Path REPLAY_FILE = Paths.get("jMinesweeper.replay");
+    public static final int BUFFER_BYTES = 8192;
+    public static final long DEFAULT_MAX_BYTES = 1 << 20;
+
+    private static final int MAGIC = 0x4A4D5352;
+    private static final short FORMAT_VERSION = 1;
+    private static final int EVENT = 3;
+    private static final int GAME_STARTED = 0;
+    private static final int OPTIONS = 1;
+    private static final int GAME_RESUMED = 2;
+    private static final int MAX_VARINT_BYTES = 10;
+
+    //  Something that watches a recording being replayed.
+    public interface ReplayListener {
+        //  Called with a new Game before its first click is replayed. A game
+        //      recorded after it was resumed starts as it was resumed.
+        default void gameStarted(Game game) {
+        }
+
+        //  Called after each click is replayed, with the milliseconds since
+        //      the recording started. The time between two runs of the game
+        //      is not recorded, so each run starts where the last one ended.
+        default void clicked(Game game, int click, int row, int col, long millis) {
+        }
+    }
+
+    private final Path file;
+    private final long maxBytes;
+    private final ByteBuffer buffer;
+    private FileChannel channel;
+    private Game recording;
+    private long lastNanos;
+    private int lastCell;
+    private boolean failed;
+
+    public ReplayRecorder(Path file) throws IOException {
+        this(file, DEFAULT_MAX_BYTES);
+    }
+
+    public ReplayRecorder(Path file, long maxBytes) throws IOException {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        openChannel();
+        lastNanos = System.nanoTime();
+    }
+
+    //  Returns the file that a recording file is moved to when it is full.
+    public static Path previousFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".old");
+    }
+
+    //  Opens the recording file for appending, starting it with the header
+    //      if it is empty. The buffer must be empty.
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        if (channel.size() == 0) {
+            buffer.putInt(MAGIC);
+            buffer.putShort(FORMAT_VERSION);
+        }
+    }
+
+    //  Starts a new recording file if the current one has reached maxBytes.
+    //      Only called before a game starts, so that no game is split
+    //      between two files.
+    private void rotateIfFull() {
+        try {
+            if (channel.size() + buffer.position() < maxBytes)
+                return;
+            flush();
+            if (failed)
+                return;
+            channel.close();
+            Files.move(file, previousFile(file), StandardCopyOption.REPLACE_EXISTING);
+            openChannel();
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.out.println("Error: could not start a new " + file + ", games will not be recorded");
+            failed = true;
+        }
+    }
+
+    //  Called by a Game after every click it accepts. The click has already
+    //      been made, so the board of a game's first click is populated.
+    void record(Game game, int click, int cell) {
+        if (failed)
+            return;
+        if (game != recording)
+            startGame(game);
+        if (!reserve(2))
+            return;
+        putTime();
+        putVarint(((long) zigzag(cell - lastCell) << 2) | click);
+        lastCell = cell;
+        if (game.getGameState() > Game.IN_PROGRESS)
+            flush();
+    }
+
+    //  Called by a Game when one of its options is toggled.
+    void optionsChanged(Game game) {
+        if (failed || game != recording || !reserve(3))
+            return;
+        putTime();
+        putVarint((OPTIONS << 2) | EVENT);
+        putVarint(game.getOptionFlags() & 0xFF);
+    }
+
+    //  Called by a Game in progress when it is given this recorder, so that
+    //      its clicks are recorded on top of the board as it is.
+    void resumeGame(Game game) {
+        if (failed)
+            return;
+        rotateIfFull();
+        if (failed)
+            return;
+        byte[] snapshot = game.snapshot(0).toBytes();
+        recording = game;
+        lastCell = 0;
+        if (!reserve(3))
+            return;
+        putTime();
+        putVarint((GAME_RESUMED << 2) | EVENT);
+        putVarint(snapshot.length);
+        for (int written=0; written<snapshot.length; ) {
+            if (!buffer.hasRemaining()) {
+                flush();
+                if (failed)
+                    return;
+            }
+            int length = Math.min(buffer.remaining(), snapshot.length - written);
+            buffer.put(snapshot, written, length);
+            written += length;
+        }
+    }
+
+    private void startGame(Game game) {
+        rotateIfFull();
+        if (failed)
+            return;
+        Difficulty diff = game.getDifficulty();
+        byte[] layout = game.getLayout();
+        recording = game;
+        lastCell = 0;
+        if (!reserve(6))
+            return;
+        putTime();
+        putVarint((GAME_STARTED << 2) | EVENT);
+        putVarint(diff.getRows());
+        putVarint(diff.getColumns());
+        putVarint(diff.getMines());
+        putVarint(game.getOptionFlags() & 0xFF);
+        int previous = 0;
+        for (int i=0; i<layout.length; i++)
+            if ((layout[i] & Board.LAYOUT_MINE) != 0) {
+                if (!reserve(1))
+                    return;
+                putVarint(i - previous);
+                previous = i;
+            }
+    }
+
+    private void putTime() {
+        long now = System.nanoTime();
+        long millis = (now - lastNanos) / 1000000;
+        lastNanos += millis * 1000000;
+        putVarint(millis);
+    }
+
+    //  Flushes the buffer if it has no room for the given number of varints,
+    //      so that the file only ever ends between entries, apart from the
+    //      mines or snapshot of a board too big for the buffer. Returns false
+    //      once recording has failed, after which nothing more is written.
+    private boolean reserve(int varints) {
+        if (buffer.remaining() < varints * MAX_VARINT_BYTES)
+            flush();
+        return !failed;
+    }
+
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    //  Writes every buffered entry to the file. Once recording has failed,
+    //      the entries are dropped instead, so the buffer always has room.
+    public void flush() {
+        if (failed) {
+            buffer.clear();
+            return;
+        }
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.out.println("Error: could not write " + file + ", games will not be recorded");
+            failed = true;
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() {
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    //  Replays every game in a recording, passing each game and click to the
+    //      listener. Each game is rebuilt from its recorded mines and played
+    //      with the recorded clicks, so the listener sees exactly the boards
+    //      the player saw.
+    public static void replay(Path file, ReplayListener listener) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (in.remaining() < 6 || in.getInt() != MAGIC)
+            throw new IOException("wrong kind of file");
+        short version = in.getShort();
+        if (version != FORMAT_VERSION)
+            throw new IOException("unknown format version " + version);
+        Game game = null;
+        int nCols = 0;
+        int cells = 0;
+        int cell = 0;
+        long millis = 0;
+        try {
+            while (in.hasRemaining()) {
+                long delta = getVarint(in);
+                int head = (int) getVarint(in);
+                millis += delta;
+                if ((head & 3) != EVENT) {
+                    if (game == null)
+                        throw new IOException("click before the first game");
+                    cell += unzigzag(head >>> 2);
+                    if (cell < 0 || cell >= cells)
+                        throw new IOException("click outside the board");
+                    int row = cell / nCols;
+                    int col = cell % nCols;
+                    int click = head & 3;
+                    if (click == MoveJournal.LEFT_CLICK)
+                        game.leftClickCell(row, col);
+                    else if (click == MoveJournal.RIGHT_CLICK)
+                        game.rightClickCell(row, col);
+                    else
+                        game.chordClickCell(row, col);
+                    listener.clicked(game, click, row, col, millis);
+                } else if ((head >>> 2) == GAME_STARTED) {
+                    Difficulty diff = new Difficulty((int) getVarint(in), (int) getVarint(in), (int) getVarint(in));
+                    byte flags = (byte) getVarint(in);
+                    cells = diff.getRows() * diff.getColumns();
+                    BitSet mines = new BitSet(cells);
+                    int index = 0;
+                    for (int i=0; i<diff.getMines(); i++) {
+                        index += (int) getVarint(in);
+                        if (index < 0 || index >= cells)
+                            throw new IOException("mine outside the board");
+                        mines.set(index);
+                    }
+                    game = new Game(diff, flags);
+                    game.restore(mines, new byte[cells], diff.getMines());
+                    nCols = diff.getColumns();
+                    cell = 0;
+                    listener.gameStarted(game);
+                } else if ((head >>> 2) == GAME_RESUMED) {
+                    byte[] snapshot = new byte[(int) getVarint(in)];
+                    in.get(snapshot);
+                    GameSnapshot resumed = GameSnapshot.fromBytes(ByteBuffer.wrap(snapshot));
+                    game = resumed.restore();
+                    nCols = resumed.getDifficulty().getColumns();
+                    cells = resumed.getDifficulty().getRows() * nCols;
+                    cell = 0;
+                    listener.gameStarted(game);
+                } else if ((head >>> 2) == OPTIONS && game != null) {
+                    setOptions(game, (byte) getVarint(in));
+                } else {
+                    throw new IOException("unknown entry " + head);
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            //  The last entry was cut short, so the recording ends before it
+        }
+    }
+
+    //  Toggles each option of the game that differs from the flags, through
+    //      the same methods as the menus, so that toggling has the same
+    //      effect on the board as it had when recorded.
+    private static void setOptions(Game game, byte flags) {
+        int changed = (game.getOptionFlags() ^ flags) & 0xFF;
+        if ((changed & Game.FIRST_ALWAYS_BLANK) != 0)
+            game.toggleFirstAlwaysBlank();
+        if ((changed & Game.LEFT_CLICK_CHORD) != 0)
+            game.toggleLeftClickChord();
+        if ((changed & Game.QUESTION_MARKS_ENABLED) != 0)
+            game.toggleMarksEnabled();
+        if ((changed & Game.AUTO_FLAG_LAST) != 0)
+            game.toggleAutoFlagLastCells();
+        if ((changed & Game.FLAG_CHORD_ENABLED) != 0)
+            game.toggleFlagChordEnabled();
+        if ((changed & Game.NO_GUESS) != 0)
+            game.toggleNoGuess();
+    }
+
+    private static long getVarint(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift=0; shift<64; shift+=7) {
+            int next = in.get();
+            value |= (long) (next & 0x7F) << shift;
+            if ((next & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("malformed varint");
+    }
+
+}
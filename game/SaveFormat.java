@@ -0,0 +1,117 @@
+package game;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+final class SaveFormat {
+
+    //  SaveFormat holds the framing shared by the game's binary files. Every
+    //      file is one body wrapped in a header and a checksum:
+    //
+    //          int    magic number identifying the kind of file
+    //          short  format version
+    //          int    length of the body in bytes
+    //          body
+    //          int    CRC32 of everything before it
+    //
+    //      The bodies are written with a DataOutputStream and read back from
+    //      a ByteBuffer. Strings are written as an int byte count followed by
+    //      UTF-8 bytes, and Difficulties as their rows, columns and mines.
+
+    static final int HEADER_BYTES = 10;
+
+    //  Something a body can be written by. Writing goes to memory, so the
+    //      IOExceptions DataOutputStream declares never actually happen.
+    interface BodyWriter {
+        void write(DataOutputStream body) throws IOException;
+    }
+
+    private SaveFormat() {
+    }
+
+    //  Returns the complete file for a body written by the given writer.
+    static byte[] frame(int magic, short version, BodyWriter writer) {
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream fileBytes;
+        try (DataOutputStream body = new DataOutputStream(bodyBytes)) {
+            writer.write(body);
+            body.flush();
+            fileBytes = new ByteArrayOutputStream(HEADER_BYTES + bodyBytes.size() + 4);
+            DataOutputStream out = new DataOutputStream(fileBytes);
+            out.writeInt(magic);
+            out.writeShort(version);
+            out.writeInt(bodyBytes.size());
+            bodyBytes.writeTo(out);
+            CRC32 crc = new CRC32();
+            crc.update(fileBytes.toByteArray());
+            out.writeInt((int) crc.getValue());
+        } catch (IOException e) {
+            //  Should never happen, as the streams write to memory
+            throw new IllegalStateException(e);
+        }
+        return fileBytes.toByteArray();
+    }
+
+    //  Checks the header and checksum of a file, and returns a buffer
+    //      positioned at the start of its body. The buffer must be backed by
+    //      an array.
+    static ByteBuffer unframe(ByteBuffer in, int magic, short version) throws IOException {
+        return unframe(in, magic, version, version);
+    }
+
+    //  Same as above, accepting any format version from oldest to newest.
+    //      The version of the file is then given by getVersion.
+    static ByteBuffer unframe(ByteBuffer in, int magic, short oldest, short newest) throws IOException {
+        try {
+            if (in.getInt() != magic)
+                throw new IOException("wrong kind of file");
+            short fileVersion = in.getShort();
+            if (fileVersion < oldest || fileVersion > newest)
+                throw new IOException("unknown format version " + fileVersion);
+            int length = in.getInt();
+            if (length < 0 || length > in.remaining() - 4)
+                throw new IOException("truncated file");
+            CRC32 crc = new CRC32();
+            crc.update(in.array(), in.arrayOffset(), HEADER_BYTES + length);
+            if (in.getInt(HEADER_BYTES + length) != (int) crc.getValue())
+                throw new IOException("checksum mismatch");
+            return in;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("truncated file", e);
+        }
+    }
+
+    //  Returns the format version in the header of a buffer returned by
+    //      unframe.
+    static short getVersion(ByteBuffer in) {
+        return in.getShort(Integer.BYTES);
+    }
+
+    static void writeDifficulty(DataOutputStream out, Difficulty diff) throws IOException {
+        out.writeInt(diff.getRows());
+        out.writeInt(diff.getColumns());
+        out.writeInt(diff.getMines());
+    }
+
+    static Difficulty readDifficulty(ByteBuffer in) {
+        return new Difficulty(in.getInt(), in.getInt(), in.getInt());
+    }
+
+    static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
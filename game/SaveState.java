@@ -1,16 +1,24 @@
 package game;
 
-import java.io.Serializable;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Collections;
+import java.util.Map;
 
 public class SaveState implements Serializable, Iterable<String[]> {
 
@@ -24,6 +32,43 @@ public class SaveState implements Serializable, Iterable<String[]> {
     //      high score table. Unlike UpdateTracker, iteration does not clear
     //      the structure.
 
+    //  A SaveState is stored in SAVE_FILE in a small binary format of its
+    //      own, framed with a header and checksum as described in SaveFormat.
+    //      The body holds:
+    //
+    //          difficulty  the selected difficulty
+    //          byte        option flags, as returned by getOptionFlags
+    //          byte        1 if games are recorded for replay, 0 if not
+    //          byte        number of custom entry strings, then each string
+    //          int         number of high scores, then for each score:
+    //              difficulty  its difficulty
+    //              int         score in seconds
+    //              string      player name
+    //
+    //      Any change to the body must increase FORMAT_VERSION, and files of
+    //      an unknown version or with a wrong checksum are ignored rather
+    //      than half-read. Files of version 1, written before games could be
+    //      recorded, have no recording byte, and are read with recording off.
+
+    //  Earlier versions of the game serialized the whole SaveState to
+    //      LEGACY_FILE with an ObjectOutputStream. The class is still
+    //      Serializable so that those files can be imported: if there is no
+    //      SAVE_FILE yet, the legacy file is read once and written out in the
+    //      new format. The legacy file itself is left in place.
+
+    //  Pinned to the value the class had in earlier versions, so that save
+    //      files written by them still load as SaveState changes. Fields
+    //      added since then are left at their defaults when an older file is
+    //      read.
+    private static final long serialVersionUID = -2964878612310328642L;
+
+    public static final Path SAVE_FILE = Paths.get("jMinesweeper.sav");
+    public static final Path LEGACY_FILE = Paths.get("jMinesweeperSaveData");
+
+    private static final int MAGIC = 0x4A4D5357;
+    private static final short FORMAT_VERSION = 2;
+    private static final short OLDEST_FORMAT_VERSION = 1;
+
     private Difficulty selected;
     private String[] lastCustomEntry;
     private boolean questionMarks;
@@ -31,6 +76,8 @@ public class SaveState implements Serializable, Iterable<String[]> {
     private boolean firstBlank;
     private boolean autoFlag;
     private boolean flagChord;
+    private boolean noGuess;
+    private boolean recordGames;
     private final HashMap<Difficulty, SaveData> scores;
 
     //  Simple private wrapper struct for player name and score. This is used
@@ -57,37 +104,117 @@ public class SaveState implements Serializable, Iterable<String[]> {
         leftChord = false;
         autoFlag = true;
         flagChord = false;
+        noGuess = false;
+        recordGames = false;
     }
 
-    //  Load a saved SaveState from file, or create a new SaveState if the file
-    //      does not exist.
-    public static SaveState loadFromFile()  {
-        try {
-            FileInputStream file = new FileInputStream("jMinesweeperSaveData");
+    //  Load a saved SaveState from file, importing the legacy file if there is
+    //      no save file yet, or create a new SaveState if neither can be read.
+    public static SaveState loadFromFile() {
+        if (Files.exists(SAVE_FILE)) {
             try {
-                ObjectInputStream in = new ObjectInputStream(file);
-                return (SaveState) in.readObject();
-            } catch (ClassNotFoundException e) {
-                //  Should never happen
-                System.err.println("Class not found");
+                return fromBytes(ByteBuffer.wrap(Files.readAllBytes(SAVE_FILE)));
+            } catch (IOException e) {
+                System.err.println("Error: could not read " + SAVE_FILE + ": " + e.getMessage());
+                return new SaveState();
+            }
+        }
+        if (Files.exists(LEGACY_FILE)) {
+            try {
+                SaveState state = importLegacy(LEGACY_FILE);
+                state.saveToFile();
+                return state;
+            } catch (IOException e) {
+                System.err.println("Error: could not import " + LEGACY_FILE + ": " + e.getMessage());
             }
-        } catch (IOException e) {
-            return new SaveState();
         }
         return new SaveState();
     }
 
-    //  Save SaveState to file.
+    //  Reads a SaveState serialized by an earlier version of the game.
+    public static SaveState importLegacy(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file);
+             ObjectInputStream objects = new ObjectInputStream(in)) {
+            return (SaveState) objects.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("not a saved game state", e);
+        }
+    }
+
+    //  Save SaveState to file. The new contents are written and synced to a
+    //      temporary file next to the save file, which is then moved over it,
+    //      so a crash during the write leaves the old file intact.
     public void saveToFile() {
         try {
-            FileOutputStream file = new FileOutputStream("jMinesweeperSaveData");
-            ObjectOutputStream out = new ObjectOutputStream(file);
-            out.writeObject(this);
-            out.close();
-            file.close();
+            writeAtomically(SAVE_FILE, toBytes());
         } catch (IOException e) {
             e.printStackTrace();
-            System.out.println("Error: File not found");
+            System.out.println("Error: could not write " + SAVE_FILE);
+        }
+    }
+
+    static void writeAtomically(Path file, byte[] bytes) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    //  Encodes this SaveState in the format described above.
+    byte[] toBytes() {
+        return SaveFormat.frame(MAGIC, FORMAT_VERSION, body -> {
+            SaveFormat.writeDifficulty(body, selected);
+            body.writeByte(getOptionFlags());
+            body.writeBoolean(recordGames);
+            body.writeByte(lastCustomEntry.length);
+            for (String entry : lastCustomEntry)
+                SaveFormat.writeString(body, entry);
+            body.writeInt(scores.size());
+            for (Map.Entry<Difficulty, SaveData> score : scores.entrySet()) {
+                SaveFormat.writeDifficulty(body, score.getKey());
+                body.writeInt(score.getValue().score);
+                SaveFormat.writeString(body, score.getValue().playerName);
+            }
+        });
+    }
+
+    //  Decodes a SaveState written by toBytes, checking the header and the
+    //      checksum before reading any of the body.
+    static SaveState fromBytes(ByteBuffer bytes) throws IOException {
+        ByteBuffer in = SaveFormat.unframe(bytes, MAGIC, OLDEST_FORMAT_VERSION, FORMAT_VERSION);
+        try {
+            SaveState state = new SaveState();
+            state.selected = SaveFormat.readDifficulty(in);
+            byte flags = in.get();
+            state.firstBlank = (flags & Game.FIRST_ALWAYS_BLANK) != 0;
+            state.leftChord = (flags & Game.LEFT_CLICK_CHORD) != 0;
+            state.questionMarks = (flags & Game.QUESTION_MARKS_ENABLED) != 0;
+            state.autoFlag = (flags & Game.AUTO_FLAG_LAST) != 0;
+            state.flagChord = (flags & Game.FLAG_CHORD_ENABLED) != 0;
+            state.noGuess = (flags & Game.NO_GUESS) != 0;
+            if (SaveFormat.getVersion(in) >= 2)
+                state.recordGames = in.get() != 0;
+            state.lastCustomEntry = new String[in.get()];
+            for (int i=0; i<state.lastCustomEntry.length; i++)
+                state.lastCustomEntry[i] = SaveFormat.readString(in);
+            int count = in.getInt();
+            for (int i=0; i<count; i++) {
+                Difficulty diff = SaveFormat.readDifficulty(in);
+                int score = in.getInt();
+                state.addScore(diff, SaveFormat.readString(in), score);
+            }
+            return state;
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("malformed save file", e);
         }
     }
 
@@ -155,6 +282,14 @@ public class SaveState implements Serializable, Iterable<String[]> {
         return flagChord;
     }
 
+    public boolean getNoGuess() {
+        return noGuess;
+    }
+
+    public boolean getRecordGames() {
+        return recordGames;
+    }
+
     public void setFirstBlank(boolean val) {
         firstBlank = val;
     }
@@ -175,9 +310,17 @@ public class SaveState implements Serializable, Iterable<String[]> {
         flagChord = val;
     }
 
+    public void setNoGuess(boolean val) {
+        noGuess = val;
+    }
+
+    public void setRecordGames(boolean val) {
+        recordGames = val;
+    }
+
     // The option flags are returned from the SaveState as a packed bit field
     //      in order to pass one value to the Game's constructor instead of
-    //      five separate boolean values.
+    //      six separate boolean values.
     public byte getOptionFlags() {
         byte retVal = 0;
         if (firstBlank)
@@ -190,6 +333,8 @@ public class SaveState implements Serializable, Iterable<String[]> {
             retVal |= Game.AUTO_FLAG_LAST;
         if (flagChord)
             retVal |= Game.FLAG_CHORD_ENABLED;
+        if (noGuess)
+            retVal |= Game.NO_GUESS;
         return retVal;
     }
 
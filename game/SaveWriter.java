@@ -0,0 +1,163 @@
+package game;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+public class SaveWriter {
+
+    //  A SaveWriter writes SaveStates to a file on a background thread, so
+    //      that the Swing event thread never waits for the disk. Changes to a
+    //      SaveState are still made in memory by the caller, and save only
+    //      takes a snapshot of its encoded bytes, which is cheap, and hands
+    //      the snapshot to the background thread. GameSnapshots are already
+    //      copies of the game, so they are encoded on the background thread
+    //      as well, and a writer can also be asked to delete its file, as a
+    //      snapshot is deleted once its game is over.
+
+    //  Saves made while a write is in progress are coalesced: only the most
+    //      recent snapshot is kept, and it is written once the current write
+    //      finishes, so a burst of saves costs at most two writes. Every
+    //      write replaces the file atomically, through the same path as
+    //      SaveState's saveToFile.
+
+    //  The time taken by every write is recorded, and any write slower than
+    //      SLOW_WRITE_MILLIS is reported as it happens. flush waits a bounded
+    //      time for the pending writes, for use when the game exits.
+
+    public static final long SLOW_WRITE_MILLIS = 250;
+
+    private final Path file;
+    private final ExecutorService executor;
+    //  The next file contents to write, encoded on the background thread.
+    //      A supplier returning null deletes the file instead.
+    private Supplier<byte[]> pending;
+    private boolean writing;
+    private int writes;
+    private int failures;
+    private long totalNanos;
+    private long maxNanos;
+
+    public SaveWriter(Path file) {
+        this.file = file;
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SaveWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //  Takes a snapshot of the state and queues it to be written.
+    public void save(SaveState state) {
+        byte[] bytes = state.toBytes();
+        queue(() -> bytes);
+    }
+
+    //  Queues a game snapshot to be encoded and written.
+    public void save(GameSnapshot snapshot) {
+        queue(snapshot::toBytes);
+    }
+
+    //  Queues the file to be deleted, replacing any write still waiting.
+    public void delete() {
+        queue(() -> null);
+    }
+
+    private void queue(Supplier<byte[]> contents) {
+        synchronized (this) {
+            pending = contents;
+            if (writing)
+                return;
+            writing = true;
+        }
+        executor.execute(this::writePending);
+    }
+
+    //  Writes snapshots until none are left, then marks the writer idle and
+    //      wakes any thread waiting in flush.
+    private void writePending() {
+        while (true) {
+            Supplier<byte[]> contents;
+            synchronized (this) {
+                contents = pending;
+                pending = null;
+                if (contents == null) {
+                    writing = false;
+                    notifyAll();
+                    return;
+                }
+            }
+            long start = System.nanoTime();
+            boolean written = true;
+            try {
+                byte[] bytes = contents.get();
+                if (bytes != null)
+                    SaveState.writeAtomically(file, bytes);
+                else
+                    Files.deleteIfExists(file);
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.out.println("Error: could not write " + file);
+                written = false;
+            }
+            long elapsed = System.nanoTime() - start;
+            synchronized (this) {
+                if (written)
+                    writes++;
+                else
+                    failures++;
+                totalNanos += elapsed;
+                maxNanos = Math.max(maxNanos, elapsed);
+            }
+            if (elapsed >= SLOW_WRITE_MILLIS * 1000000)
+                System.err.printf("Slow save: %s took %.1f ms%n", file, elapsed / 1e6);
+        }
+    }
+
+    //  Waits up to the given number of milliseconds for every queued snapshot
+    //      to be written. Returns true if nothing is left to write.
+    public synchronized boolean flush(long timeoutMillis) {
+        long deadline = System.nanoTime() + timeoutMillis * 1000000;
+        try {
+            while (writing) {
+                long remaining = (deadline - System.nanoTime()) / 1000000;
+                if (remaining <= 0)
+                    return false;
+                wait(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return !writing;
+        }
+        return true;
+    }
+
+    public synchronized int getWrites() {
+        return writes;
+    }
+
+    public synchronized int getFailures() {
+        return failures;
+    }
+
+    //  The mean and longest time taken by a write, in milliseconds, counting
+    //      failed writes, or 0 if nothing has been written.
+    public synchronized double getAverageWriteMillis() {
+        int attempts = writes + failures;
+        return (attempts == 0) ? 0 : totalNanos / 1e6 / attempts;
+    }
+
+    public synchronized double getMaxWriteMillis() {
+        return maxNanos / 1e6;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: %d saves written, %d failed, %.1f ms average, %.1f ms longest", file,
+                writes, failures, getAverageWriteMillis(), getMaxWriteMillis());
+    }
+
+}
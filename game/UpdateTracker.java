@@ -1,61 +1,135 @@
 package game;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
 
 public class UpdateTracker implements Iterable<Posn> {
 
-    //  The UpdateTracker is an iterable wrapper object for an ArrayList of
-    //      Posns, representing the coordinates of the cells that need their
-    //      icons updated on the board GUI. The constructor simply creates a
-    //      new ArrayList of Posns, which is final, and its methods operate
-    //      on this ArrayList.
+    //  The UpdateTracker keeps track of the coordinates of the cells that need
+    //      their icons updated on the board GUI. Each cell is identified by
+    //      its flat index, row*nCols + col. A bitset with one bit per cell
+    //      records which cells are currently queued, and an int array holds
+    //      the queued indexes in the order they were added. Adding a cell and
+    //      checking for a duplicate are both a single bit test, so a cascade
+    //      touching a hundred thousand cells costs a hundred thousand
+    //      constant-time inserts.
 
-    private final ArrayList<Posn> updated;
+    //  Both arrays start empty and grow on demand, so a tracker that only
+    //      ever holds a few cells, such as the pressed-cell trackers in
+    //      CellBoardPanel, stays small on a large board.
 
-    public UpdateTracker() {
-        updated = new ArrayList<>();
+    private final int nRows, nCols;
+    private long[] dirty;
+    private int[] queue;
+    private int head, tail;
+
+    public UpdateTracker(int rows, int cols) {
+        nRows = rows;
+        nCols = cols;
+        dirty = new long[0];
+        queue = new int[16];
+        head = 0;
+        tail = 0;
     }
 
     //  The UpdateTracker is designed to be iterated through in an enhanced
     //      for loop in the GUI. The iterator removes an item from the
-    //      ArrayList each time next() is called, ensuring that the ArrayList
-    //      will be empty when iteration is complete.
+    //      queue each time next() is called, ensuring that the tracker
+    //      will be empty when iteration is complete. Each call to next()
+    //      creates a new Posn; callers that want to avoid this should use
+    //      forEachDirty instead.
     @Override
     public Iterator<Posn> iterator() {
         return new Iterator<Posn>() {
 
             @Override
             public boolean hasNext() {
-                return (updated.size() > 0);
+                return (head < tail);
             }
 
             @Override
             public Posn next() {
-                return updated.remove(0);
+                if (head >= tail)
+                    throw new NoSuchElementException();
+                int index = poll();
+                return new Posn(index / nCols, index % nCols);
             }
         };
     }
 
-    //  addUpdate checks the ArrayList for a duplicate posn, and returns
-    //      without adding anything if the argument is a duplicate. I tried to
-    //      avoid any scenarios where this method would be called multiple
-    //      on the same cell, but figured I'd make it impossible to add
-    //      duplicates just in case I made a mistake.
+    //  Removes every queued cell in insertion order, passing each one's flat
+    //      index to the given consumer. Like the iterator, this leaves the
+    //      tracker empty, and cells added by the consumer while it runs are
+    //      delivered in the same call. No objects are created.
+    public void forEachDirty(IntConsumer action) {
+        while (head < tail)
+            action.accept(poll());
+    }
+
+    //  addUpdate ignores a cell that is already queued. I tried to avoid any
+    //      scenarios where this method would be called multiple times on the
+    //      same cell, but figured I'd make it impossible to add duplicates
+    //      just in case I made a mistake.
     public void addUpdate(Posn pos) {
-        if (!contains(pos))
-            updated.add(pos);
+        addUpdate(pos.row, pos.col);
+    }
+
+    public void addUpdate(int row, int col) {
+        markDirty(row*nCols + col);
+    }
+
+    //  Queues the cell at the given flat index, unless it is already queued.
+    public void markDirty(int index) {
+        int word = index >>> 6;
+        if (word >= dirty.length)
+            dirty = Arrays.copyOf(dirty, Math.min(Math.max(word + 1, dirty.length * 2),
+                    ((nRows*nCols) >>> 6) + 1));
+        long bit = 1L << index;
+        if ((dirty[word] & bit) != 0)
+            return;
+        dirty[word] |= bit;
+        if (tail == queue.length) {
+            if (head > 0) {
+                System.arraycopy(queue, head, queue, 0, tail - head);
+                tail -= head;
+                head = 0;
+            }
+            if (tail == queue.length)
+                queue = Arrays.copyOf(queue, queue.length * 2);
+        }
+        queue[tail++] = index;
     }
 
-    //  Returns true if the ArrayList contains the given Posn. This is used
-    //      in addUpdate to check for duplicates. Equality is checked according
-    //      to the equals method in Posn -- both row and col are equal.
+    //  Returns true if the given cell is currently queued.
     public boolean contains(Posn pos) {
-        for (Posn p : updated) {
-            if (p.equals(pos))
-                return true;
+        return isDirty(pos.row*nCols + pos.col);
+    }
+
+    public boolean isDirty(int index) {
+        int word = index >>> 6;
+        return word < dirty.length && (dirty[word] & (1L << index)) != 0;
+    }
+
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    public int getColumns() {
+        return nCols;
+    }
+
+    //  Removes and returns the oldest queued index, clearing its bit so that
+    //      it may be queued again. The queue is rewound once it is drained.
+    private int poll() {
+        int index = queue[head++];
+        dirty[index >>> 6] &= ~(1L << index);
+        if (head == tail) {
+            head = 0;
+            tail = 0;
         }
-        return false;
+        return index;
     }
 
 }
@@ -0,0 +1,47 @@
+package gui;
+
+import javax.swing.*;
+import java.awt.*;
+
+public class BorderStrip extends JComponent {
+
+    //  A BorderStrip is one straight edge of the game window's border. It
+    //      paints its icon repeatedly along its length, so that the strip
+    //      always fills whatever space its layout gives it. This replaced a
+    //      row of one JLabel per board column, which no longer lined up with
+    //      the cells once the board could be scrolled and zoomed.
+
+    //  The preferred length is a whole number of icons, and may be 0 for
+    //      strips that are stretched to the size of their neighbors by a
+    //      BorderLayout. The preferred thickness is always that of the icon.
+
+    private static final long serialVersionUID = 1L;
+
+    private final ImageIcon icon;
+    private final boolean horizontal;
+    private final int tiles;
+
+    public BorderStrip(ImageIcon icon, boolean horizontal, int tiles) {
+        this.icon = icon;
+        this.horizontal = horizontal;
+        this.tiles = tiles;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (horizontal)
+            return new Dimension(tiles * icon.getIconWidth(), icon.getIconHeight());
+        return new Dimension(icon.getIconWidth(), tiles * icon.getIconHeight());
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (horizontal)
+            for (int x=0; x<getWidth(); x+=icon.getIconWidth())
+                icon.paintIcon(this, g, x, 0);
+        else
+            for (int y=0; y<getHeight(); y+=icon.getIconHeight())
+                icon.paintIcon(this, g, 0, y);
+    }
+
+}
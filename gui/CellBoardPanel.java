@@ -3,18 +3,20 @@ package gui;
 import board.Cell;
 import game.*;
 import javax.swing.*;
-import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
 import java.util.Objects;
+import java.util.function.IntConsumer;
 
 public class CellBoardPanel {
 
     //  A CellBoardPanel represents the area of the game window containing the
-    //      grid of cell buttons. On each click, the proper call must be made
-    //      to the Game object to process the operation, and the cells must
-    //      display correctly.
+    //      grid of cells. On each click, the proper call must be made to the
+    //      Game object to process the operation, and the cells must display
+    //      correctly.
 
     //  A CellBoardPanel has a reference to the Game object, in order to make
     //      calls invoking game logic, and a reference to the parent GamePanel.
@@ -23,10 +25,28 @@ public class CellBoardPanel {
     //      back to the OuterFrame to check for a high score when the game is
     //      won.
 
-    //  JButtons associated with the individual Cells are stored in a 2D array.
+    //  The whole grid is painted by a single component, a BoardCanvas, which
+    //      draws each cell's icon at its position in the grid. This replaced a
+    //      grid of one JButton per cell, each with its own mouse listener,
+    //      which took seconds to build and hundreds of megabytes of memory on
+    //      large custom boards. One mouse listener on the canvas maps pixel
+    //      coordinates to cells, and only the cells that changed are
+    //      repainted after each click.
+
+    //  The BoardCanvas sits inside a JScrollPane, which acts as a viewport
+    //      onto the board. Boards that fit within the maximum viewport size
+    //      given by the OuterFrame are shown whole, exactly as before, while
+    //      larger boards are scrolled. Since only the cells inside the clip
+    //      rectangle are ever painted, only the visible window of cells is
+    //      drawn, however large the board is. The board can also be zoomed,
+    //      which scales every cell image once per zoom level rather than on
+    //      every paint.
 
     //  Three boolean values track which mouse buttons have been pressed, and
-    //      whether a chord click has been activated.
+    //      whether a chord click has been activated. The position of the cell
+    //      the current click started on is also stored, as the click is
+    //      aborted if the cursor leaves that cell before the buttons are
+    //      released.
 
     private final ImageIcon unrevealed = new ImageIcon(Objects.requireNonNull(
             getClass().getResource("/resources/unrevealed.png")));
@@ -61,49 +81,75 @@ public class CellBoardPanel {
     private final ImageIcon questionMarkedClicked = new ImageIcon(Objects.requireNonNull(
             getClass().getResource("/resources/markedClicked.png")));
 
-    private final JPanel board;
+    //  Zoom levels, as percentages of the cell images' actual size, and the
+    //      index of the actual size in that list.
+    private static final int[] ZOOM_PERCENTS = {25, 50, 75, 100, 150, 200};
+    private static final int DEFAULT_ZOOM = 3;
+
+    //  cellImages holds the current zoom level's image for each view state
+    //      constant in Cell, plus one extra entry for a pressed
+    //      question-marked cell, at index PRESSED_MARK.
+    private static final int PRESSED_MARK = 15;
+
+    private final BoardCanvas board;
+    private final JScrollPane viewport;
+    private final Dimension maxViewportSize;
     private final int rows, cols;
+    private final Image[] cellImages;
+    private int cellWidth, cellHeight;
+    private int zoomLevel;
     private final GamePanel parent;
-    private final JButton[][] buttons;
     private Game game;
+    private final IntConsumer cellUpdater = this::updateCell;
+
+    //  UpdateTracker used to keep track of which cells have been clicked on
+    //      but not yet released on. These cells are painted as pressed. If the
+    //      player moves the mouse away from the clicked cell while the left
+    //      button is pressed, no click occurs, and the cells that were
+    //      previously displayed as "pressed" must be reset.
+    private final UpdateTracker clicked;
 
     private boolean leftClicked, rightClicked, chordActivated;
+    private int pressedRow, pressedCol;
+
+    //  Bounds, in cells, of the region to be repainted after an update. These
+    //      are only meaningful while updateCells is running.
+    private int dirtyTop, dirtyLeft, dirtyBottom, dirtyRight;
 
-    public CellBoardPanel(int nRows, int nCols, Game g, GamePanel parentComponent) {
+    public CellBoardPanel(int nRows, int nCols, Game g, Dimension maxSize, GamePanel parentComponent) {
         rows = nRows;
         cols = nCols;
-        buttons = new JButton[rows][cols];
+        maxViewportSize = maxSize;
+        cellImages = new Image[PRESSED_MARK + 1];
+        zoomLevel = DEFAULT_ZOOM;
+        scaleCellImages();
         game = g;
         parent = parentComponent;
-        board = new JPanel(new GridLayout(rows, cols, 0, 0));
+        clicked = new UpdateTracker(rows, cols);
+        board = new BoardCanvas();
+        viewport = new JScrollPane(board);
+        viewport.setBorder(null);
         leftClicked = false;
         rightClicked = false;
         chordActivated = false;
-        initialize();
-    }
-
-    //  Initializes the grid of JButtons and makes a call to
-    //      addCellClickHandler, which adds the mouse listener to each one.
-    private void initialize() {
-        for (int i=0; i<rows; i++)
-            for (int j=0; j<cols; j++) {
-                JButton button = new JButton();
-                button.setIcon(unrevealed);
-                button.setMargin(new Insets(0, 0, 0, 0));
-                button.setBorder(new EmptyBorder(0, 0, 0, 0));
-                board.add(button);
-                buttons[i][j] = button;
-                addCellClickHandler(i, j);
-            }
+        pressedRow = -1;
+        pressedCol = -1;
+        CellClickHandler handler = new CellClickHandler();
+        board.addMouseListener(handler);
+        board.addMouseMotionListener(handler);
+        board.addMouseWheelListener(handler);
     }
 
     //  Used when resetting the game by clicking the smiley. A new Game object
-    //      is provided, and the cells all get set to unrevealed.
+    //      is provided, and the whole board is repainted, showing every cell
+    //      as unrevealed.
     public void reset(Game g) {
         game = g;
-        for (int i=0; i<rows; i++)
-            for (int j=0; j<cols; j++)
-                buttons[i][j].setIcon(unrevealed);
+        clicked.forEachDirty(index -> {});
+        leftClicked = false;
+        rightClicked = false;
+        chordActivated = false;
+        board.repaint();
     }
 
     //  Used in the parent GamePanel to update the board's view state when
@@ -112,192 +158,353 @@ public class CellBoardPanel {
         updateCells(game.getUpdateTracker());
     }
 
-    //  This method adds a MouseAdapter to a cell button. Due to the added
-    //      complexity of the chord click operation, there is no ActionListener
-    //      for handling left clicks -- the MouseAdapter's methods update the
-    //      CellBoardPanel click state variables and take the appropriate
-    //      action.
-    private void addCellClickHandler(int row, int col) {
-        buttons[row][col].addMouseListener(new MouseAdapter() {
-
-            //  Special UpdateTracker used to keep track of which cells have
-            //      been clicked on but not yet released on. If the player
-            //      moves the mouse away from the clicked cell while the left
-            //      button is pressed, no click occurs, and the cells that were
-            //      previously displayed as "pressed" must be reset.
-            private final UpdateTracker clicked = new UpdateTracker();
-
-            //  When any of the three mouse buttons are pressed, one or more of
-            //      the three boolean click state variables are manipulated.
-            //      left and right clicks set leftClicked and rightClicked
-            //      respectively, and a middle click sets chordActivated. Left,
-            //      right, and chord are all mutually exclusive, as pressing
-            //      left or right while the other is already activated will
-            //      clear both and set chordActivated, and setting
-            //      chordActivated with a middle click will also clear both
-            //      others.
-            //  When the player makes a valid left click or valid right click,
-            //      one or more cells will be added to the clicked
-            //      updateTracker and displayed as pressed. A chord click
-            //      activated with both left and right or with the middle
-            //      button will show all adjacent unrevealed cells as pressed,
-            //      unless chord-flagging is enabled and the click is a valid
-            //      chord-flag. When chord-clicking with the left mouse button,
-            //      adjacent cells will only be shown as pressed if the
-            //      click will generate a valid chord click.
-            @Override
-            public void mousePressed(MouseEvent e) {
-                if (game.getGameState() > Game.IN_PROGRESS)
-                    return;
-                if (e.getButton() == MouseEvent.BUTTON1)
-                    leftClicked = true;
-                else if (e.getButton() == MouseEvent.BUTTON3)
-                    rightClicked = true;
-                if (e.getButton() == MouseEvent.BUTTON2 || (leftClicked && rightClicked)) {
-                    chordActivated = true;
-                    leftClicked = false;
-                    rightClicked = false;
-                }
-                if (game.getViewState(row, col) == Cell.FLAGGED || rightClicked)
-                    return;
-                boolean alreadyUpdated = updateClicked(row, col);
-                int flags = countFlaggedSurrounding();
-                if (!alreadyUpdated &&
-                        (!game.getFlagChordEnabled()||!(countClickableSurrounding()==game.getViewState(row,col)-flags))
-                        && (chordActivated || (game.getLeftClickChord() && game.getViewState(row, col) == flags))) {
-                    for (int i=row-1; i<=row+1; i++)
-                        for (int j=col-1; j<=col+1; j++)
-                            if (isValidCell(i, j))
-                                updateClicked(i, j);
-                }
-                parent.getInfoPanel().setSmileyShocked();
-            }
+    //  The component that paints the grid. Only the rows and columns that
+    //      intersect the clip rectangle are painted, so repainting a few
+    //      changed cells does not redraw the whole board, and scrolling a
+    //      huge board only draws the cells that come into view. As a
+    //      Scrollable, it asks the scroll pane for a viewport no larger than
+    //      the maximum viewport size, and scrolls by whole cells.
+    private class BoardCanvas extends JComponent implements Scrollable {
+
+        private static final long serialVersionUID = 1L;
 
-            //  Most times this method is called, nothing will be done, as the
-            //      cursor is simply gliding across the window. When the mouse
-            //      has been dragged out of a cell after pressing a button,
-            //      however, no matter what combination of left, right, and
-            //      middle, this indicates an aborted click and the previous
-            //      state must be restored. In the case of a left click or
-            //      chord click, this means updating the cells at the
-            //      coordinates stored in clicked back to unrevealed (or
-            //      question-marked). In all cases, the click variables are
-            //      reset to false.
-            @Override
-            public void mouseExited(MouseEvent e) {
+        @Override
+        public Dimension getPreferredSize() {
+            return new Dimension(cols * cellWidth, rows * cellHeight);
+        }
+
+        @Override
+        public Dimension getPreferredScrollableViewportSize() {
+            Dimension size = getPreferredSize();
+            return new Dimension(Math.min(size.width, maxViewportSize.width),
+                    Math.min(size.height, maxViewportSize.height));
+        }
+
+        @Override
+        public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+            return (orientation == SwingConstants.HORIZONTAL) ? cellWidth : cellHeight;
+        }
+
+        @Override
+        public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+            if (orientation == SwingConstants.HORIZONTAL)
+                return Math.max(cellWidth, visibleRect.width - cellWidth);
+            return Math.max(cellHeight, visibleRect.height - cellHeight);
+        }
+
+        @Override
+        public boolean getScrollableTracksViewportWidth() {
+            return false;
+        }
+
+        @Override
+        public boolean getScrollableTracksViewportHeight() {
+            return false;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Rectangle clip = g.getClipBounds();
+            if (clip == null)
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            int firstRow = Math.max(0, clip.y / cellHeight);
+            int lastRow = Math.min(rows - 1, (clip.y + clip.height - 1) / cellHeight);
+            int firstCol = Math.max(0, clip.x / cellWidth);
+            int lastCol = Math.min(cols - 1, (clip.x + clip.width - 1) / cellWidth);
+            for (int i=firstRow; i<=lastRow; i++)
+                for (int j=firstCol; j<=lastCol; j++)
+                    g.drawImage(cellImages[getImageIndex(i, j)], j * cellWidth, i * cellHeight, null);
+        }
+    }
+
+    //  This MouseAdapter handles every mouse event on the board. Due to the
+    //      added complexity of the chord click operation, there is no
+    //      ActionListener for handling left clicks -- the MouseAdapter's
+    //      methods update the CellBoardPanel click state variables and take
+    //      the appropriate action.
+    private class CellClickHandler extends MouseAdapter {
+
+        //  When any of the three mouse buttons are pressed, one or more of
+        //      the three boolean click state variables are manipulated.
+        //      left and right clicks set leftClicked and rightClicked
+        //      respectively, and a middle click sets chordActivated. Left,
+        //      right, and chord are all mutually exclusive, as pressing
+        //      left or right while the other is already activated will
+        //      clear both and set chordActivated, and setting
+        //      chordActivated with a middle click will also clear both
+        //      others.
+        //  When the player makes a valid left click or valid right click,
+        //      one or more cells will be added to the clicked
+        //      updateTracker and displayed as pressed. A chord click
+        //      activated with both left and right or with the middle
+        //      button will show all adjacent unrevealed cells as pressed,
+        //      unless chord-flagging is enabled and the click is a valid
+        //      chord-flag. When chord-clicking with the left mouse button,
+        //      adjacent cells will only be shown as pressed if the
+        //      click will generate a valid chord click.
+        @Override
+        public void mousePressed(MouseEvent e) {
+            if (game.getGameState() > Game.IN_PROGRESS)
+                return;
+            int row = e.getY() / cellHeight;
+            int col = e.getX() / cellWidth;
+            if (e.getX() < 0 || e.getY() < 0 || !isValidCell(row, col))
+                return;
+            pressedRow = row;
+            pressedCol = col;
+            if (e.getButton() == MouseEvent.BUTTON1)
+                leftClicked = true;
+            else if (e.getButton() == MouseEvent.BUTTON3)
+                rightClicked = true;
+            if (e.getButton() == MouseEvent.BUTTON2 || (leftClicked && rightClicked)) {
+                chordActivated = true;
                 leftClicked = false;
                 rightClicked = false;
-                chordActivated = false;
-                updateCells(clicked);
-                parent.getInfoPanel().updateSmiley();
             }
+            if (game.getViewState(row, col) == Cell.FLAGGED || rightClicked)
+                return;
+            boolean alreadyUpdated = updateClicked(row, col);
+            //  The flags and hidden cells around the pressed cell are counted
+            //      by the board, to decide whether the press previews a chord.
+            //      The cells around it are only shown as pressed if the chord
+            //      would reveal cells, and not if it would flag them.
+            int flags = game.getFlagsAdjacent(row, col);
+            if (!alreadyUpdated &&
+                    (!game.getFlagChordEnabled()||!(game.getHiddenAdjacent(row, col)==game.getViewState(row,col)-flags))
+                    && (chordActivated || (game.getLeftClickChord() && game.getViewState(row, col) == flags))) {
+                for (int i=row-1; i<=row+1; i++)
+                    for (int j=col-1; j<=col+1; j++)
+                        if (isValidCell(i, j))
+                            updateClicked(i, j);
+            }
+            parent.getInfoPanel().setSmileyShocked();
+        }
 
-            //  If one of the click state variables is set, then an entire
-            //      click operation has been performed with the cursor inside
-            //      one cell, and a Game method must be invoked. If some click
-            //      must be performed, updateCells first resets the icons of
-            //      the cells in clicked to their pre-clicked state. This
-            //      ensures that an invalid chord click does not leave cells
-            //      pressed. Next, the appropriate Game click method is called
-            //      and its click state variable is reset to false. Finally,
-            //      the board and info panel are updated according to the
-            //      results of the click.
-            public void mouseReleased(MouseEvent e) {
-                if (game.getGameState() == Game.OVER_WIN || game.getGameState() == Game.OVER_LOSS)
-                    return;
-                if (!(leftClicked || rightClicked || chordActivated))
-                    return;
-                updateCells(clicked);
-                if (game.getGameState() == Game.NOT_STARTED)
-                    if (!chordActivated)
-                        parent.getInfoPanel().startTimer();
-                    else
-                        return;
-                if (leftClicked) {
-                    game.leftClickCell(row, col);
-                    leftClicked = false;
-                } else if (rightClicked) {
-                    game.rightClickCell(row, col);
-                    rightClicked = false;
-                } else if (chordActivated) {
-                    game.chordClickCell(row, col);
-                    chordActivated = false;
-                }
-                parent.getInfoPanel().updateMineCount();
-                updateCells(game.getUpdateTracker());
-                parent.getInfoPanel().updateSmiley();
-                if (game.getGameState() > Game.IN_PROGRESS)
-                    parent.getInfoPanel().haltTimer();
-                if (game.getGameState() == Game.OVER_WIN)
-                    parent.processWin();
+        //  Dragging the cursor out of the cell the click started on, no
+        //      matter what combination of left, right, and middle is held,
+        //      indicates an aborted click, exactly as if the cursor had left
+        //      the board.
+        @Override
+        public void mouseDragged(MouseEvent e) {
+            if (pressedRow < 0)
+                return;
+            if (e.getX() < 0 || e.getY() < 0 ||
+                    e.getY() / cellHeight != pressedRow || e.getX() / cellWidth != pressedCol)
+                abortClick();
+        }
+
+        //  Most times this method is called, nothing will be done, as the
+        //      cursor is simply gliding out of the window. When the mouse
+        //      has been dragged out of the board after pressing a button,
+        //      however, the click is aborted.
+        @Override
+        public void mouseExited(MouseEvent e) {
+            abortClick();
+        }
+
+        //  Scrolling the mouse wheel with the control key held zooms the
+        //      board, keeping the cell under the cursor in place. Without the
+        //      control key, the event is passed on to the scroll pane, which
+        //      would otherwise never see it, as the canvas has a wheel
+        //      listener of its own.
+        @Override
+        public void mouseWheelMoved(MouseWheelEvent e) {
+            if (!e.isControlDown()) {
+                viewport.dispatchEvent(SwingUtilities.convertMouseEvent(board, e, viewport));
+                return;
             }
+            if (e.getWheelRotation() < 0)
+                setZoomLevel(zoomLevel + 1, e.getPoint());
+            else if (e.getWheelRotation() > 0)
+                setZoomLevel(zoomLevel - 1, e.getPoint());
+        }
 
-            //  Sets a cell's icon to the pressed state if appropriate, and
-            //      returns a boolean describing whether the operation was
-            //      successful. Successfully-pressed cells are added to
-            //      the clicked UpdateTracker.
-            private boolean updateClicked(int r, int c) {
-                if (game.getViewState(r, c) == Cell.UNREVEALED)
-                    buttons[r][c].setIcon(revealedBlank);
-                else if (game.getViewState(r, c) == Cell.QUESTION_MARKED)
-                    buttons[r][c].setIcon(questionMarkedClicked);
+        //  If one of the click state variables is set, then an entire
+        //      click operation has been performed with the cursor inside
+        //      one cell, and a Game method must be invoked. If some click
+        //      must be performed, updateCells first resets the icons of
+        //      the cells in clicked to their pre-clicked state. This
+        //      ensures that an invalid chord click does not leave cells
+        //      pressed. Next, the appropriate Game click method is called
+        //      and its click state variable is reset to false. Finally,
+        //      the board and info panel are updated according to the
+        //      results of the click.
+        @Override
+        public void mouseReleased(MouseEvent e) {
+            if (game.getGameState() == Game.OVER_WIN || game.getGameState() == Game.OVER_LOSS)
+                return;
+            if (!(leftClicked || rightClicked || chordActivated))
+                return;
+            int row = pressedRow;
+            int col = pressedCol;
+            updateCells(clicked);
+            if (game.getGameState() == Game.NOT_STARTED)
+                if (!chordActivated)
+                    parent.getInfoPanel().startTimer();
                 else
-                    return false;
-                clicked.addUpdate(new Posn(r, c));
-                return true;
+                    return;
+            if (leftClicked) {
+                game.leftClickCell(row, col);
+                leftClicked = false;
+            } else if (rightClicked) {
+                game.rightClickCell(row, col);
+                rightClicked = false;
+            } else if (chordActivated) {
+                game.chordClickCell(row, col);
+                chordActivated = false;
             }
+            parent.getInfoPanel().updateMineCount();
+            updateCells(game.getUpdateTracker());
+            parent.getInfoPanel().updateSmiley();
+            if (game.getGameState() > Game.IN_PROGRESS)
+                parent.getInfoPanel().haltTimer();
+            parent.moveMade();
+            if (game.getGameState() == Game.OVER_WIN)
+                parent.processWin();
+        }
+    }
 
-            //  Private method to count the number of flagged cells surrounding
-            //      the current cell. This is used to determine whether the
-            //      cells surrounding a clicked revealed cell should be
-            //      displayed as clicked, as in some cases they should only be
-            //      shown as clicked if the click will result in cells being
-            //      revealed.
-            private int countFlaggedSurrounding() {
-                int count = 0;
-                for (int i=row-1; i<=row+1; i++)
-                    for (int j=col-1; j<=col+1; j++)
-                        if (isValidCell(i, j) && game.getViewState(i, j) == Cell.FLAGGED)
-                            count++;
-                return count;
-            }
+    //  Restores the previous state after an aborted click. In the case of a
+    //      left click or chord click, this means repainting the cells stored
+    //      in clicked as unrevealed (or question-marked). In all cases, the
+    //      click variables are reset to false.
+    private void abortClick() {
+        leftClicked = false;
+        rightClicked = false;
+        chordActivated = false;
+        pressedRow = -1;
+        pressedCol = -1;
+        updateCells(clicked);
+        parent.getInfoPanel().updateSmiley();
+    }
 
-            //  Counts the number of "clickable" (unrevealed or question marked) cells
-            //      surrounding the cell at a given position. Used to determine whether
-            //      a flag-chord click is being performed, as a chord click does not
-            //      show cells as pressed when a flag chord is being performed.
-            private int countClickableSurrounding() {
-                int count = 0;
-                for (int i=row-1; i<=row+1; i++)
-                    for (int j=col-1; j<=col+1; j++)
-                        if (isValidCell(i, j) && (game.getViewState(i, j) == Cell.UNREVEALED ||
-                                game.getViewState(i, j) == Cell.QUESTION_MARKED))
-                            count++;
-                return count;
-            }
+    //  Displays a cell as pressed if appropriate, and returns a boolean
+    //      describing whether the operation was successful.
+    //      Successfully-pressed cells are added to the clicked
+    //      UpdateTracker, and are painted as pressed until they are removed.
+    private boolean updateClicked(int r, int c) {
+        int viewState = game.getViewState(r, c);
+        if (viewState != Cell.UNREVEALED && viewState != Cell.QUESTION_MARKED)
+            return false;
+        clicked.addUpdate(r, c);
+        board.repaint(c * cellWidth, r * cellHeight, cellWidth, cellHeight);
+        return true;
+    }
 
-            //  Simple shorthand to make if statements cleaner
-            private boolean isValidCell(int i, int j) {
-                return (i>=0 && j>=0 && i<rows && j<cols);
-            }
-        });
+    //  Simple shorthand to make if statements cleaner
+    private boolean isValidCell(int i, int j) {
+        return (i>=0 && j>=0 && i<rows && j<cols);
+    }
+
+    //  Getter for the board component, used by GamePanel to get its center
+    //      element, which is the scroll pane holding the board.
+    public JComponent getBoardComponent() {
+        return viewport;
     }
 
-    //  Getter for the board JPanel, used by GamePanel to get its center
-    //      element, which is the board panel.
-    public JPanel getBoardJPanel() {
-        return board;
+    public void zoomIn() {
+        setZoomLevel(zoomLevel + 1, null);
     }
 
-    //  Updates the cells at all Posns in the given UpdateTracker. This is used
+    public void zoomOut() {
+        setZoomLevel(zoomLevel - 1, null);
+    }
+
+    public void resetZoom() {
+        setZoomLevel(DEFAULT_ZOOM, null);
+    }
+
+    //  Changes the zoom level, if the new level exists and differs from the
+    //      current one. The anchor is a point on the board, in the canvas's
+    //      pixel coordinates at the old zoom level, that should stay at the
+    //      same spot in the viewport after zooming. If it is null, the center
+    //      of the visible area is used. The parent GamePanel is told about
+    //      the new board size so that the window can be fitted to it before
+    //      the view is scrolled into place.
+    private void setZoomLevel(int level, Point anchor) {
+        if (level < 0 || level >= ZOOM_PERCENTS.length || level == zoomLevel)
+            return;
+        Rectangle visible = board.getVisibleRect();
+        if (anchor == null)
+            anchor = new Point(visible.x + visible.width/2, visible.y + visible.height/2);
+        double anchorCol = (double) anchor.x / cellWidth;
+        double anchorRow = (double) anchor.y / cellHeight;
+        int offsetX = anchor.x - visible.x;
+        int offsetY = anchor.y - visible.y;
+        zoomLevel = level;
+        scaleCellImages();
+        board.revalidate();
+        parent.boardResized();
+        Dimension size = board.getPreferredSize();
+        Dimension extent = viewport.getViewport().getExtentSize();
+        int x = (int) (anchorCol * cellWidth) - offsetX;
+        int y = (int) (anchorRow * cellHeight) - offsetY;
+        x = Math.max(0, Math.min(x, size.width - extent.width));
+        y = Math.max(0, Math.min(y, size.height - extent.height));
+        viewport.getViewport().setViewPosition(new Point(x, y));
+        board.repaint();
+    }
+
+    //  Sets the cell size for the current zoom level, and rescales every cell
+    //      image to it. At actual size, the icons' own images are used.
+    private void scaleCellImages() {
+        cellWidth = Math.max(1, unrevealed.getIconWidth() * ZOOM_PERCENTS[zoomLevel] / 100);
+        cellHeight = Math.max(1, unrevealed.getIconHeight() * ZOOM_PERCENTS[zoomLevel] / 100);
+        for (int i=0; i<cellImages.length; i++) {
+            ImageIcon icon = (i == PRESSED_MARK) ? questionMarkedClicked : getIconFromViewState(i);
+            if (icon.getIconWidth() == cellWidth && icon.getIconHeight() == cellHeight) {
+                cellImages[i] = icon.getImage();
+                continue;
+            }
+            BufferedImage scaled = new BufferedImage(cellWidth, cellHeight, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = scaled.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(icon.getImage(), 0, 0, cellWidth, cellHeight, null);
+            g.dispose();
+            cellImages[i] = scaled;
+        }
+    }
+
+    //  Repaints the cells queued in the given UpdateTracker. This is used
     //      both to display updates from the Game logic, and to restore the
-    //      view state of cells after aborted clicks.
+    //      view state of cells after aborted clicks. The tracker hands over
+    //      flat cell indexes, so no Posn is created for each updated cell,
+    //      and a single repaint is requested for the bounding box of all the
+    //      updated cells.
     private void updateCells(UpdateTracker updateTracker) {
-        for (Posn pos : updateTracker) {
-            int r = pos.row();
-            int c = pos.col();
-            buttons[r][c].setIcon(getIconFromViewState(game.getViewState(r, c)));
+        if (updateTracker.isEmpty())
+            return;
+        dirtyTop = rows;
+        dirtyLeft = cols;
+        dirtyBottom = -1;
+        dirtyRight = -1;
+        updateTracker.forEachDirty(cellUpdater);
+        board.repaint(dirtyLeft * cellWidth, dirtyTop * cellHeight,
+                (dirtyRight - dirtyLeft + 1) * cellWidth, (dirtyBottom - dirtyTop + 1) * cellHeight);
+    }
+
+    private void updateCell(int index) {
+        int r = index / cols;
+        int c = index % cols;
+        dirtyTop = Math.min(dirtyTop, r);
+        dirtyBottom = Math.max(dirtyBottom, r);
+        dirtyLeft = Math.min(dirtyLeft, c);
+        dirtyRight = Math.max(dirtyRight, c);
+    }
+
+    //  Returns the index in cellImages of the image to paint for the cell at
+    //      the given position. Cells in the clicked UpdateTracker are painted
+    //      as pressed, and all other cells are painted according to their
+    //      view state.
+    private int getImageIndex(int r, int c) {
+        int viewState = game.getViewState(r, c);
+        if (clicked.isDirty(r * cols + c)) {
+            if (viewState == Cell.UNREVEALED)
+                return Cell.REVEALED_BLANK;
+            if (viewState == Cell.QUESTION_MARKED)
+                return PRESSED_MARK;
         }
+        return viewState;
     }
 
     //  Simple switch statement to map viewState values to their associated
@@ -16,9 +16,9 @@ public class GamePanel {
     //      using BorderLayout, contains the info panel in its Center region,
     //      and border graphics everywhere else.
 
-    //  These first three are public static because they are used by methods
-    //      for calculating the size in pixels of a theoretical sizes in pixels
-    //      and cells of theoretical boards, located in OuterFrame
+    //  These first three are public static because they are used by a method
+    //      for calculating the space left for the board viewport on the
+    //      screen, located in OuterFrame
     public static final ImageIcon borderEdgeHoriz = new ImageIcon(Objects.requireNonNull(
             GamePanel.class.getResource("/resources/borderEdgeHoriz.png")));
     public static final ImageIcon borderEdgeVert = new ImageIcon(Objects.requireNonNull(
@@ -43,71 +43,78 @@ public class GamePanel {
     private final InfoPanel info;
     private final OuterFrame parent;
 
-    public GamePanel(Difficulty difficulty, byte optionFlags, OuterFrame parentComponent) {
-        rows = difficulty.getRows();
-        cols = difficulty.getColumns();
+    //  Boards of at least LARGE_BOARD_CELLS cells take long enough to snapshot
+    //      that doing so after every click would stall the board, so their
+    //      clicks are snapshotted at most once every SNAPSHOT_INTERVAL_MILLIS.
+    //      The clicks in between are kept by the OuterFrame's move journal.
+    private static final int LARGE_BOARD_CELLS = 1 << 20;
+    private static final long SNAPSHOT_INTERVAL_MILLIS = 5000;
+    private long lastSnapshotNanos;
+
+    //  The maximum viewport size is the largest area, in pixels, the board
+    //      may take up on the screen. Boards larger than this are scrolled.
+    public GamePanel(Difficulty difficulty, byte optionFlags, Dimension maxViewportSize,
+                     OuterFrame parentComponent) {
+        this(new Game(difficulty, optionFlags), maxViewportSize, parentComponent);
+    }
+
+    //  Resumes the game recorded in a snapshot, with the timer running from
+    //      the recorded number of seconds.
+    public GamePanel(GameSnapshot snapshot, Dimension maxViewportSize, OuterFrame parentComponent) {
+        this(snapshot.restore(), maxViewportSize, parentComponent);
+        info.resumeTimer(snapshot.getElapsedSeconds());
+    }
+
+    private GamePanel(Game g, Dimension maxViewportSize, OuterFrame parentComponent) {
+        rows = g.getDifficulty().getRows();
+        cols = g.getDifficulty().getColumns();
         gamePanel = new JPanel(new BorderLayout());
-        game = new Game(difficulty, optionFlags);
+        game = g;
         info = new InfoPanel(this, game);
         parent = parentComponent;
-        board = new CellBoardPanel(rows, cols, game, this);
+        lastSnapshotNanos = System.nanoTime();
+        board = new CellBoardPanel(rows, cols, game, maxViewportSize, this);
         initialize();
     }
 
-    //  First creates the border, which varies in size based on difficulty.
-    //      Two JPanels containing meaningful information, the panel returned
-    //      by the final CellBoardPanel field and the panel returned by the
-    //      final InfoPanel field, are inserted into the JPanel stored and
-    //      returned by this GamePanel.
+    //  First creates the border, whose straight edges are BorderStrips that
+    //      stretch to the size of the board viewport. Two components
+    //      containing meaningful information, the scroll pane holding the
+    //      CellBoardPanel's board and the panel returned by the final
+    //      InfoPanel field, are inserted into the JPanel stored and returned
+    //      by this GamePanel.
     private void initialize() {
-        JPanel south = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 0));
-        south.add(new JLabel(borderCornerBL));
-        for (int i=0; i<cols; i++)
-            south.add(new JLabel(borderEdgeHoriz));
-        south.add(new JLabel(borderCornerBR));
+        JPanel south = new JPanel(new BorderLayout());
+        south.add(new JLabel(borderCornerBL), BorderLayout.WEST);
+        south.add(new BorderStrip(borderEdgeHoriz, true, 0), BorderLayout.CENTER);
+        south.add(new JLabel(borderCornerBR), BorderLayout.EAST);
         gamePanel.add(south, BorderLayout.SOUTH);
 
-        JPanel west = new JPanel(new GridLayout(rows, 1, 0, 0));
-        for (int i=0; i<rows; i++)
-            west.add(new JLabel(borderEdgeVert));
-        gamePanel.add(west, BorderLayout.WEST);
-
-        JPanel east = new JPanel(new GridLayout(rows, 1, 0, 0));
-        for (int i=0; i<rows; i++)
-            east.add(new JLabel(borderEdgeVert));
-        gamePanel.add(east, BorderLayout.EAST);
+        gamePanel.add(new BorderStrip(borderEdgeVert, false, 0), BorderLayout.WEST);
+        gamePanel.add(new BorderStrip(borderEdgeVert, false, 0), BorderLayout.EAST);
 
         JPanel north = new JPanel(new BorderLayout());
 
-        JPanel nNorth = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 0));
-        nNorth.add(new JLabel(borderCornerTL));
-        for (int i=0; i<cols; i++)
-            nNorth.add(new JLabel(borderEdgeHoriz));
-        nNorth.add(new JLabel(borderCornerTR));
+        JPanel nNorth = new JPanel(new BorderLayout());
+        nNorth.add(new JLabel(borderCornerTL), BorderLayout.WEST);
+        nNorth.add(new BorderStrip(borderEdgeHoriz, true, 0), BorderLayout.CENTER);
+        nNorth.add(new JLabel(borderCornerTR), BorderLayout.EAST);
         north.add(nNorth, BorderLayout.NORTH);
 
-        JPanel nWest = new JPanel(new GridLayout(2, 1, 0, 0));
-        nWest.add(new JLabel(borderEdgeVert));
-        nWest.add(new JLabel(borderEdgeVert));
-        north.add(nWest, BorderLayout.WEST);
-
-        JPanel nEast = new JPanel(new GridLayout(2, 1, 0, 0));
-        nEast.add(new JLabel(borderEdgeVert));
-        nEast.add(new JLabel(borderEdgeVert));
-        north.add(nEast, BorderLayout.EAST);
-
-        JPanel nSouth = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 0));
-        nSouth.add(new JLabel(borderMidLeft));
-        for (int i=0; i<cols; i++)
-            nSouth.add(new JLabel(borderEdgeHoriz));
-        nSouth.add(new JLabel(borderMidRight));
+        north.add(new BorderStrip(borderEdgeVert, false, 2), BorderLayout.WEST);
+        north.add(new BorderStrip(borderEdgeVert, false, 2), BorderLayout.EAST);
+
+        JPanel nSouth = new JPanel(new BorderLayout());
+        nSouth.add(new JLabel(borderMidLeft), BorderLayout.WEST);
+        nSouth.add(new BorderStrip(borderEdgeHoriz, true, 0), BorderLayout.CENTER);
+        nSouth.add(new JLabel(borderMidRight), BorderLayout.EAST);
         north.add(nSouth, BorderLayout.SOUTH);
 
         north.add(info.getInfoJPanel(), BorderLayout.CENTER);
 
         gamePanel.add(north, BorderLayout.NORTH);
 
-        gamePanel.add(board.getBoardJPanel(), BorderLayout.CENTER);
+        gamePanel.add(board.getBoardComponent(), BorderLayout.CENTER);
 
         gamePanel.setBackground(Color.BLACK);
         gamePanel.setBorder(new EmptyBorder(1, 1, 1, 1));
@@ -125,6 +132,8 @@ public class GamePanel {
             game.toggleLeftClickChord();
         else if (optionFlag == Game.FLAG_CHORD_ENABLED)
             game.toggleFlagChordEnabled();
+        else if (optionFlag == Game.NO_GUESS)
+            game.toggleNoGuess();
         else if (optionFlag == Game.QUESTION_MARKS_ENABLED) {
             game.toggleMarksEnabled();
             refreshBoard();
@@ -137,6 +146,7 @@ public class GamePanel {
                 info.haltTimer();
             }
         }
+        saveGame();
     }
 
     //  Called when the smiley icon is clicked, the "New" menu option is
@@ -145,6 +155,28 @@ public class GamePanel {
         game = new Game(game);
         board.reset(game);
         info.reset(game);
+        saveGame();
+    }
+
+    //  Called by the CellBoardPanel after every click, so that the OuterFrame
+    //      can record the game in progress. Clicks that changed nothing are
+    //      not recorded, and on large boards a game still in progress is only
+    //      recorded once the last snapshot is old enough.
+    public void moveMade() {
+        if (!game.getLastClickChanged())
+            return;
+        if (game.getGameState() == Game.IN_PROGRESS
+                && (long) rows * cols >= LARGE_BOARD_CELLS
+                && System.nanoTime() - lastSnapshotNanos < SNAPSHOT_INTERVAL_MILLIS * 1_000_000)
+            return;
+        saveGame();
+    }
+
+    //  Records the game in the OuterFrame at once, after every click that gets
+    //      through moveMade and whenever the game changes otherwise.
+    private void saveGame() {
+        lastSnapshotNanos = System.nanoTime();
+        parent.saveSnapshot();
     }
 
     //  Refreshes the board's icons. Used when a menu generates updates instead
@@ -161,6 +193,28 @@ public class GamePanel {
         return info;
     }
 
+    //  Zoom controls, called from the View menu in the OuterFrame. Each one
+    //      is passed along to the CellBoardPanel, which calls back to
+    //      boardResized when the zoom level actually changes.
+    public void zoomIn() {
+        board.zoomIn();
+    }
+
+    public void zoomOut() {
+        board.zoomOut();
+    }
+
+    public void resetZoom() {
+        board.resetZoom();
+    }
+
+    //  Called by the CellBoardPanel when zooming has changed the size of the
+    //      board, so that the OuterFrame can fit the window to it.
+    public void boardResized() {
+        gamePanel.revalidate();
+        parent.fitFrame();
+    }
+
     //  The GamePanel takes a reference to its parent OuterFrame, and the
     //      CellBoardPanel takes a reference to its parent GamePanel. When
     //      a win is detected in the CellBoardPanel, a call is made here in
@@ -169,7 +223,7 @@ public class GamePanel {
     //      a call is made to the OuterFrame where the score is finally
     //      processed.
     public void processWin() {
-        parent.processWin(info.getTimeCount());
+        parent.processWin(info.getTimeCount(), game.getBoardMetrics());
         info.updateMineCount();
     }
 
@@ -134,6 +134,10 @@ public class InfoPanel {
         timeCount.haltTimer();
     }
 
+    public void resumeTimer(int seconds) {
+        timeCount.resumeTimer(seconds);
+    }
+
     //  Resets both the timer and mine count, using a new Game object passed
     //      from the GamePanel.
     public void reset(Game g) {
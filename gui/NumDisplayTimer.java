@@ -54,6 +54,15 @@ public class NumDisplayTimer extends NumericDisplay {
         timer.start();
     }
 
+    //  Sets the timer to the given number of seconds and starts it. This is
+    //      called when a game saved in a snapshot is resumed.
+    public void resumeTimer(int seconds) {
+        timeCount = seconds;
+        setNumsFromInt(timeCount);
+        if (timeCount <= 1000)
+            timer.start();
+    }
+
     //  Halts the timer without resetting the displayed value. This happens
     //      when the game is won or lost.
     public void haltTimer() {
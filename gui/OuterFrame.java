@@ -2,9 +2,15 @@ package gui;
 
 import javax.swing.*;
 import javax.swing.event.HyperlinkEvent;
+import board.BoardMetrics;
 import game.Game;
 import game.Difficulty;
+import game.GameSnapshot;
+import game.MoveJournal;
+import game.ReplayRecorder;
 import game.SaveState;
+import game.SaveWriter;
+import game.BoardPool;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.IOException;
@@ -21,25 +27,57 @@ public class OuterFrame {
     private final ImageIcon mineIcon = new ImageIcon(Objects.requireNonNull(
             getClass().getResource("/resources/mineIcon.png")));
 
+    //  Largest number of cells allowed on a custom board. Boards are no longer
+    //      limited by the size of the screen, as boards too big to fit are
+    //      scrolled, so this only guards against boards too big for memory.
+    private static final int MAX_CELLS = 16000000;
+
+    //  Longest time the window waits on closing for each save file to be
+    //      written, so that a stuck disk cannot keep the game from exiting.
+    private static final long EXIT_FLUSH_MILLIS = 2000;
+
     private final JFrame frame = new JFrame();
     private final JRadioButtonMenuItem beginner, intermediate, expert, custom;
     private JRadioButtonMenuItem selected;
     private final JMenuItem bestTimes;
     private GamePanel gamePanel;
     private final SaveState state;
+    private final SaveWriter saveWriter;
+    private final SaveWriter snapshotWriter;
+    private final MoveJournal journal;
+    private ReplayRecorder recorder;
+    private final BoardPool boardPool;
 
     //  This constructor initializes the JFrame for the most recently-played
     //      difficulty (intermediate if the save file is not created yet)
-    //      and centers the frame on the screen. For the sake of readability,
-    //      the menus are initialized in a call to a separate private method.
+    //      and centers the frame on the screen. If the window was closed
+    //      during a game, that game is resumed from its snapshot, or rebuilt
+    //      from the move journal if the game crashed before the snapshot of
+    //      its last moves was written. For the sake of readability, the menus
+    //      are initialized in a call to a separate private method.
     public OuterFrame() {
         state = SaveState.loadFromFile();
+        saveWriter = new SaveWriter(SaveState.SAVE_FILE);
+        snapshotWriter = new SaveWriter(GameSnapshot.SNAPSHOT_FILE);
+        boardPool = new BoardPool();
+        journal = new MoveJournal(MoveJournal.JOURNAL_FILE, MoveJournal.DEFAULT_CAPACITY,
+                () -> gamePanel.getInfoPanel().getTimeCount());
+        if (state.getRecordGames())
+            recorder = openRecorder();
         frame.setTitle("jMinesweeper by Kai Sandstrom");
         frame.setIconImage(mineIcon.getImage());
         frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         frame.addWindowListener(new WindowAdapter() {
             public void windowClosing(WindowEvent windowEvent) {
-                state.saveToFile();
+                saveWriter.save(state);
+                saveSnapshot();
+                if (!saveWriter.flush(EXIT_FLUSH_MILLIS))
+                    System.err.println("Error: save file not written within " + EXIT_FLUSH_MILLIS + " ms");
+                if (!snapshotWriter.flush(EXIT_FLUSH_MILLIS))
+                    System.err.println("Error: game snapshot not written within " + EXIT_FLUSH_MILLIS + " ms");
+                journal.close();
+                if (recorder != null)
+                    recorder.close();
                 System.exit(0);
             }
         });
@@ -65,7 +103,17 @@ public class OuterFrame {
         difficulties.add(custom);
         bestTimes = new JMenuItem("Best Times...");
         initializeMenus();
-        gamePanel = new GamePanel(state.getSelected(), state.getOptionFlags(), this);
+        frame.pack();   // Makes the frame displayable, so that its insets are known
+        GameSnapshot snapshot = MoveJournal.recover(MoveJournal.JOURNAL_FILE);
+        if (snapshot == null)
+            snapshot = GameSnapshot.loadFromFile();
+        if (snapshot != null && snapshot.getDifficulty().equals(state.getSelected()))
+            gamePanel = new GamePanel(snapshot, getMaxViewportSize(), this);
+        else
+            gamePanel = new GamePanel(state.getSelected(), state.getOptionFlags(), getMaxViewportSize(), this);
+        gamePanel.getGame().setJournal(journal);
+        gamePanel.getGame().setReplayRecorder(recorder);
+        gamePanel.getGame().setBoardPool(boardPool);
         frame.add(gamePanel.getGamePanel());
         frame.pack();
         frame.setLocationRelativeTo(null);
@@ -79,11 +127,14 @@ public class OuterFrame {
         gameMenu.setMnemonic(KeyEvent.VK_G);
         JMenu optionsMenu = new JMenu("Options");
         optionsMenu.setMnemonic(KeyEvent.VK_O);
+        JMenu viewMenu = new JMenu("View");
+        viewMenu.setMnemonic(KeyEvent.VK_V);
         JMenu helpMenu = new JMenu("Help");
         helpMenu.setMnemonic(KeyEvent.VK_H);
         JMenuBar menuBar = new JMenuBar();
         menuBar.add(gameMenu);
         menuBar.add(optionsMenu);
+        menuBar.add(viewMenu);
         menuBar.add(helpMenu);
 
         JMenuItem newGame = new JMenuItem("New");
@@ -114,21 +165,30 @@ public class OuterFrame {
         JCheckBoxMenuItem flagChord = new JCheckBoxMenuItem("Enable flag chording");
         JCheckBoxMenuItem questionMarks = new JCheckBoxMenuItem("Question marks");
         JCheckBoxMenuItem autoFlag = new JCheckBoxMenuItem("Auto-flag last cells");
+        JCheckBoxMenuItem noGuess = new JCheckBoxMenuItem("No-guess boards");
+        JCheckBoxMenuItem recordGames = new JCheckBoxMenuItem("Record games");
         firstBlank.setMnemonic(KeyEvent.VK_C);
         leftChord.setMnemonic(KeyEvent.VK_L);
         flagChord.setMnemonic(KeyEvent.VK_F);
         questionMarks.setMnemonic(KeyEvent.VK_Q);
         autoFlag.setMnemonic(KeyEvent.VK_A);
+        noGuess.setMnemonic(KeyEvent.VK_N);
+        recordGames.setMnemonic(KeyEvent.VK_R);
         firstBlank.addActionListener(new OptionsListener(firstBlank, Game.FIRST_ALWAYS_BLANK));
         leftChord.addActionListener(new OptionsListener(leftChord, Game.LEFT_CLICK_CHORD));
         flagChord.addActionListener(new OptionsListener(flagChord, Game.FLAG_CHORD_ENABLED));
         questionMarks.addActionListener(new OptionsListener(questionMarks, Game.QUESTION_MARKS_ENABLED));
         autoFlag.addActionListener(new OptionsListener(autoFlag, Game.AUTO_FLAG_LAST));
+        noGuess.addActionListener(new OptionsListener(noGuess, Game.NO_GUESS));
+        recordGames.addActionListener(e -> setRecording(recordGames.isSelected()));
         optionsMenu.add(firstBlank);
         optionsMenu.add(leftChord);
         optionsMenu.add(flagChord);
         optionsMenu.add(questionMarks);
         optionsMenu.add(autoFlag);
+        optionsMenu.add(noGuess);
+        optionsMenu.addSeparator();
+        optionsMenu.add(recordGames);
         if (state.getFirstBlank())
             firstBlank.setSelected(true);
         if (state.getLeftChord())
@@ -139,6 +199,26 @@ public class OuterFrame {
             autoFlag.setSelected(true);
         if (state.getFlagChord())
             flagChord.setSelected(true);
+        if (state.getNoGuess())
+            noGuess.setSelected(true);
+        if (state.getRecordGames())
+            recordGames.setSelected(true);
+
+        JMenuItem zoomIn = new JMenuItem("Zoom In");
+        JMenuItem zoomOut = new JMenuItem("Zoom Out");
+        JMenuItem actualSize = new JMenuItem("Actual Size");
+        zoomIn.setMnemonic(KeyEvent.VK_I);
+        zoomOut.setMnemonic(KeyEvent.VK_O);
+        actualSize.setMnemonic(KeyEvent.VK_A);
+        zoomIn.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_EQUALS, InputEvent.CTRL_DOWN_MASK));
+        zoomOut.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_MINUS, InputEvent.CTRL_DOWN_MASK));
+        actualSize.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_0, InputEvent.CTRL_DOWN_MASK));
+        zoomIn.addActionListener(e -> gamePanel.zoomIn());
+        zoomOut.addActionListener(e -> gamePanel.zoomOut());
+        actualSize.addActionListener(e -> gamePanel.resetZoom());
+        viewMenu.add(zoomIn);
+        viewMenu.add(zoomOut);
+        viewMenu.add(actualSize);
 
         JMenuItem about = new JMenuItem("About jMinesweeper...");
         about.setMnemonic(KeyEvent.VK_A);
@@ -154,16 +234,73 @@ public class OuterFrame {
     //      the JPanel, the JFrame must be resized and re-centered.
     private void resetFrame(Difficulty difficulty) {
         state.setSelected(difficulty);
+        GamePanel newPanel = new GamePanel(difficulty, state.getOptionFlags(), getMaxViewportSize(), this);
+        newPanel.getGame().setJournal(journal);
+        newPanel.getGame().setReplayRecorder(recorder);
+        newPanel.getGame().setBoardPool(boardPool);
         Dimension oldSize = frame.getSize();
-        Dimension newSize = getNewSize(difficulty);
+        Dimension newSize = getNewSize(newPanel);
         Point oldLocation = frame.getLocationOnScreen();
         Point newLocation = getNewLocation(oldLocation, oldSize, newSize);
         frame.setSize(newSize);
         frame.setLocation(newLocation);
         frame.remove(gamePanel.getGamePanel());
-        gamePanel = new GamePanel(difficulty, state.getOptionFlags(), this);
+        gamePanel = newPanel;
         frame.add(gamePanel.getGamePanel());
         frame.pack();
+        saveSnapshot();
+    }
+
+    //  Called by the GamePanel after every move, and whenever the game is
+    //      replaced. A game in progress is recorded, and queued to be written
+    //      to the snapshot file, so that it can be resumed if the window is
+    //      closed. Once there is no game in progress, the snapshot is deleted
+    //      and the move journal emptied.
+    public void saveSnapshot() {
+        Game game = gamePanel.getGame();
+        if (game.getGameState() == Game.IN_PROGRESS) {
+            snapshotWriter.save(game.snapshot(gamePanel.getInfoPanel().getTimeCount()));
+        } else {
+            snapshotWriter.delete();
+            journal.discard();
+        }
+    }
+
+    //  Called when the "Record games" option is toggled. Turning it on opens
+    //      the replay file and records the current game from its board as
+    //      it is, and turning it off closes the file. Games are only
+    //      recorded while the option is on.
+    private void setRecording(boolean record) {
+        state.setRecordGames(record);
+        if (record && recorder == null) {
+            recorder = openRecorder();
+            gamePanel.getGame().setReplayRecorder(recorder);
+        } else if (!record && recorder != null) {
+            gamePanel.getGame().setReplayRecorder(null);
+            recorder.close();
+            recorder = null;
+        }
+    }
+
+    //  Opens the replay file, or returns null if it cannot be opened.
+    private static ReplayRecorder openRecorder() {
+        try {
+            return new ReplayRecorder(ReplayRecorder.REPLAY_FILE);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.out.println("Error: could not open " + ReplayRecorder.REPLAY_FILE + ", games will not be recorded");
+            return null;
+        }
+    }
+
+    //  Called by the GamePanel when zooming changes the size of the board.
+    //      The frame is fitted to the new size and re-centered on the same
+    //      point, in the same way as when the difficulty changes.
+    public void fitFrame() {
+        Dimension oldSize = frame.getSize();
+        Point oldLocation = frame.getLocationOnScreen();
+        frame.pack();
+        frame.setLocation(getNewLocation(oldLocation, oldSize, frame.getSize()));
     }
 
     //  This method returns a Point representing the top-left corner of the new
@@ -195,18 +332,21 @@ public class OuterFrame {
     //  This method's calls originate in the CellBoardPanel when a click has
     //      resulted in a win. The winning score is passed up to the OuterFrame
     //      and this method checks if this score is a high score, adding it to
-    //      the SaveState and saving the new state if it is.
-    public void processWin(int newScore) {
+    //      the SaveState and queuing it to be saved if it is. The board's 3BV
+    //      and the player's 3BV/s are shown along with the new high score.
+    public void processWin(int newScore, BoardMetrics metrics) {
         Difficulty current = state.getSelected();
         if (state.containsEntry(current)) {
             int oldScore = state.getScoreSeconds(current);
             if (newScore > oldScore)
                 return;
         }
-        JPanel content = new JPanel(new GridLayout(4, 1, 0, 5));
+        JPanel content = new JPanel(new GridLayout(5, 1, 0, 5));
         JTextField nameInput = new JTextField(10);
         content.add(new JLabel("You have the fastest time for board:"));
         content.add(new JLabel(current.toString()));
+        content.add(new JLabel(String.format("3BV: %d, 3BV/s: %.2f", metrics.getThreeBV(),
+                metrics.getThreeBVPerSecond(newScore))));
         content.add(new JLabel("Please enter your name:"));
         content.add(nameInput);
         JOptionPane.showConfirmDialog(frame, content, "New High Score", JOptionPane.DEFAULT_OPTION);
@@ -214,7 +354,7 @@ public class OuterFrame {
         if (name.equals(""))
             name = "Anonymous";
         state.addScore(current, name, newScore);
-        state.saveToFile();
+        saveWriter.save(state);
         bestTimes.doClick();
     }
 
@@ -342,11 +482,9 @@ public class OuterFrame {
                 loadParams();
                 return prompt();
             }
-            if (!isValidScreenSize(rows, cols)) {
-                Dimension maxSize = getMaxBoardSize();
-                reason = "Custom board is too big to fit on the screen.\n\nLargest possible board for your screen:\n" +
-                        "Height: " + (int)maxSize.getHeight() + "\nWidth:  " + (int)maxSize.getWidth() + "\n ";
-            } else if (cols < 9 || rows < 2)
+            if ((long) rows * cols > MAX_CELLS)
+                reason = "Custom board is too big.\n\nThe board may have at most " + MAX_CELLS + " cells.\n ";
+            else if (cols < 9 || rows < 2)
                 reason = "Custom board must have at least 2 rows and 9 columns.\n ";
             else if (mines > (cols * rows)-9)
                 reason = "Too many mines. There must be at least 9 non-mine cells on the board.\n ";
@@ -372,28 +510,6 @@ public class OuterFrame {
             state.setLastCustomEntry(new String[]{getHeight.getText(), getWidth.getText(), getMines.getText()});
             return true;
         }
-
-        //  Private method to check that a board with a given number of rows
-        //      and columns can fit on the system's screen.
-        private boolean isValidScreenSize(int rows, int cols) {
-            GraphicsEnvironment env = GraphicsEnvironment.getLocalGraphicsEnvironment();
-            Rectangle bounds = env.getMaximumWindowBounds();
-            int newWidth = getWidthInPixels(cols);
-            int newHeight = getHeightInPixels(rows) +
-                    (frame.getHeight() - gamePanel.getGamePanel().getHeight());
-            return (newWidth <= bounds.getWidth()) && (newHeight <= bounds.getHeight());
-        }
-
-        //  Private method that returns the maximum number of rows and columns
-        //      that can fit on the screen.
-        private Dimension getMaxBoardSize() {
-            GraphicsEnvironment env = GraphicsEnvironment.getLocalGraphicsEnvironment();
-            Rectangle bounds = env.getMaximumWindowBounds();
-            int maxRows = getMaxRowsFromHeightInPixels((int)bounds.getHeight() -
-                    (frame.getHeight() - gamePanel.getGamePanel().getHeight()));
-            int maxCols = getMaxColsFromWidthInPixels((int)bounds.getWidth());
-            return new Dimension(maxCols, maxRows);
-        }
     }
 
     //  Resets the game panel object to start a new game of the same difficulty
@@ -436,6 +552,8 @@ public class OuterFrame {
                 state.setAutoFlag(item.isSelected());
             else if (optionFlag == Game.FLAG_CHORD_ENABLED)
                 state.setFlagChord(item.isSelected());
+            else if (optionFlag == Game.NO_GUESS)
+                state.setNoGuess(item.isSelected());
             gamePanel.toggleOption(optionFlag);
         }
     }
@@ -566,41 +684,43 @@ public class OuterFrame {
         }
     }
 
-    //  Returns the width of a theoretical GamePanel with a given number of
-    //      columns.
-    private int getWidthInPixels(int nCols) {
-        return 2 + (2 * GamePanel.borderCornerTL.getIconWidth()) +
-                (nCols * GamePanel.borderEdgeHoriz.getIconWidth());
-    }
-
-    //  Returns the height of a theoretical GamePanel with a given number of
-    //      rows.
-    private int getHeightInPixels(int nRows) {
-        return 2 + (3 * GamePanel.borderCornerTL.getIconHeight()) +
-                ((nRows+2) * GamePanel.borderEdgeVert.getIconHeight());
+    //  Returns the largest size, in pixels, the board viewport can take up
+    //      while the whole window still fits on the screen. This is the
+    //      screen's usable area, minus the window decorations and menu bar,
+    //      the border and info panel around the board, and room for scroll
+    //      bars. Boards larger than this are scrolled.
+    private Dimension getMaxViewportSize() {
+        GraphicsEnvironment env = GraphicsEnvironment.getLocalGraphicsEnvironment();
+        Rectangle bounds = env.getMaximumWindowBounds();
+        Insets insets = frame.getInsets();
+        int menuHeight = frame.getJMenuBar().getPreferredSize().height;
+        int scrollBar = new JScrollBar(JScrollBar.VERTICAL).getPreferredSize().width;
+        int width = (int)bounds.getWidth() - insets.left - insets.right - getBorderWidthInPixels() - scrollBar;
+        int height = (int)bounds.getHeight() - insets.top - insets.bottom - menuHeight -
+                getBorderHeightInPixels() - scrollBar;
+        return new Dimension(width, height);
     }
 
-    //  Returns the number of columns that can fit into a board of a
-    //      theoretical width in pixels.
-    private int getMaxColsFromWidthInPixels(int pix) {
-        return (pix - (2 + 2*(GamePanel.borderCornerTL.getIconWidth()))) / GamePanel.borderEdgeHoriz.getIconWidth();
+    //  Returns the combined width of everything in a GamePanel to the left
+    //      and right of the board.
+    private int getBorderWidthInPixels() {
+        return 2 + (2 * GamePanel.borderCornerTL.getIconWidth());
     }
 
-    //  Returns the number of rows that can fit into a board of a theoretical
-    //      height in pixels.
-    private int getMaxRowsFromHeightInPixels(int pix) {
-        return (pix - (2 + 3*(GamePanel.borderCornerTL.getIconHeight()) +
-                2*GamePanel.borderEdgeVert.getIconHeight())) / GamePanel.borderEdgeVert.getIconHeight();
+    //  Returns the combined height of everything in a GamePanel above and
+    //      below the board, including the info panel.
+    private int getBorderHeightInPixels() {
+        return 2 + (3 * GamePanel.borderCornerTL.getIconHeight()) +
+                (2 * GamePanel.borderEdgeVert.getIconHeight());
     }
 
-    //  Determines proper frame Dimension from Difficulty.
-    private Dimension getNewSize(Difficulty diff) {
-        int newX = getWidthInPixels(diff.getColumns());
+    //  Determines proper frame Dimension from the GamePanel about to be
+    //      placed in the frame.
+    private Dimension getNewSize(GamePanel newPanel) {
+        Dimension panelSize = newPanel.getGamePanel().getPreferredSize();
+        int sideBarWidth = frame.getWidth() - gamePanel.getGamePanel().getWidth();
         int topBarHeight = frame.getHeight() - gamePanel.getGamePanel().getHeight();
-        int newY = getHeightInPixels(diff.getRows()) + topBarHeight;
-        return new Dimension(newX, newY);
+        return new Dimension(panelSize.width + sideBarWidth, panelSize.height + topBarHeight);
     }
 
 }
-
-
@@ -0,0 +1,65 @@
+package sim;
+
+import board.Board;
+import board.BoardMetrics;
+import game.Difficulty;
+import game.UpdateTracker;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.LongStream;
+
+public class BoardSurvey {
+
+    //  A BoardSurvey measures the BoardMetrics of large numbers of boards, to
+    //      rank difficulties by how much work their boards really take rather
+    //      than by mine density alone. Each board is populated as if the
+    //      first click were in the middle of the board, and is measured
+    //      without being played.
+
+    //  The boards are measured by a parallel stream over board numbers. Board
+    //      i is populated from the difficulty's generator for the seed plus
+    //      i, so every board depends only on the seed and its number, and a
+    //      survey gives the same result however the stream splits the work.
+
+    //  Returns the statistics of the given number of boards of one
+    //      difficulty.
+    public SurveyResult survey(Difficulty diff, boolean firstAlwaysBlank, long boards, long seed) {
+        return LongStream.range(0, boards).parallel()
+                .mapToObj(i -> measure(diff, firstAlwaysBlank, seed + i))
+                .collect(() -> new SurveyResult(diff), SurveyResult::accept, SurveyResult::combine);
+    }
+
+    //  Surveys each difficulty in turn, and returns the results ranked from
+    //      the least to the most 3BV per safe cell.
+    public List<SurveyResult> rank(List<Difficulty> difficulties, boolean firstAlwaysBlank, long boards, long seed) {
+        List<SurveyResult> results = new ArrayList<>();
+        for (Difficulty diff : difficulties)
+            results.add(survey(diff, firstAlwaysBlank, boards, seed));
+        results.sort(Comparator.comparingDouble(SurveyResult::getThreeBVPerSafeCell));
+        return results;
+    }
+
+    private static BoardMetrics measure(Difficulty diff, boolean firstAlwaysBlank, long seed) {
+        int rows = diff.getRows();
+        int cols = diff.getColumns();
+        Board board = Board.create(rows, cols, new UpdateTracker(rows, cols));
+        board.populateBoard(rows / 2, cols / 2, diff.getMines(), firstAlwaysBlank, diff.newGenerator(seed));
+        return BoardMetrics.measure(board);
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: BoardSurvey <beginner|intermediate|expert|RxCxM>[,...] <boards> [seed]");
+            return;
+        }
+        List<Difficulty> difficulties = new ArrayList<>();
+        for (String name : args[0].split(","))
+            difficulties.add(Simulator.parseDifficulty(name));
+        long boards = Long.parseLong(args[1]);
+        long seed = (args.length > 2) ? Long.parseLong(args[2]) : System.nanoTime();
+        for (SurveyResult result : new BoardSurvey().rank(difficulties, true, boards, seed))
+            System.out.println(result);
+    }
+
+}
@@ -0,0 +1,22 @@
+package sim;
+
+import game.Game;
+import java.util.random.RandomGenerator;
+
+public interface MoveStrategy {
+
+    //  A MoveStrategy plays games for the Simulator, one move at a time. The
+    //      Simulator creates one strategy per task, so an implementation may
+    //      keep whatever state it likes between moves without worrying about
+    //      other threads.
+
+    //  Called once at the start of every game, before its first move.
+    default void newGame(Game game) {
+    }
+
+    //  Makes exactly one move on the given game, which is always in progress
+    //      or not yet started. Any random choices should be drawn from the
+    //      given generator, so that a seeded simulation is reproducible.
+    void makeMove(Game game, RandomGenerator random);
+
+}
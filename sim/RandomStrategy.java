@@ -0,0 +1,44 @@
+package sim;
+
+import board.Cell;
+import game.Difficulty;
+import game.Game;
+import java.util.random.RandomGenerator;
+
+public class RandomStrategy implements MoveStrategy {
+
+    //  The simplest possible player, used as a baseline. The first click is
+    //      made in the middle of the board, and every move after that
+    //      left-clicks a hidden cell chosen uniformly at random. It never
+    //      places flags.
+
+    @Override
+    public void makeMove(Game game, RandomGenerator random) {
+        Difficulty diff = game.getDifficulty();
+        int rows = diff.getRows();
+        int cols = diff.getColumns();
+        if (game.getGameState() == Game.NOT_STARTED) {
+            game.leftClickCell(rows / 2, cols / 2);
+            return;
+        }
+        int hidden = 0;
+        for (int row=0; row<rows; row++)
+            for (int col=0; col<cols; col++)
+                if (isHidden(game.getViewState(row, col)))
+                    hidden++;
+        if (hidden == 0)
+            return;
+        int chosen = random.nextInt(hidden);
+        for (int row=0; row<rows; row++)
+            for (int col=0; col<cols; col++)
+                if (isHidden(game.getViewState(row, col)) && chosen-- == 0) {
+                    game.leftClickCell(row, col);
+                    return;
+                }
+    }
+
+    private static boolean isHidden(int viewState) {
+        return viewState == Cell.UNREVEALED || viewState == Cell.QUESTION_MARKED;
+    }
+
+}
@@ -0,0 +1,83 @@
+package sim;
+
+import game.Difficulty;
+
+public class SimulationResult {
+
+    //  The totals from a batch of simulated games. Each task in a simulation
+    //      builds its own SimulationResult, and the results are combined as
+    //      the tasks are joined, so no counter is ever shared between
+    //      threads. Games that hit the Simulator's move limit without
+    //      finishing are counted as unfinished rather than as losses.
+
+    private final Difficulty difficulty;
+    private final long games, wins, losses, moves;
+    private final long elapsedNanos;
+
+    SimulationResult(Difficulty diff, long games, long wins, long losses, long moves, long elapsedNanos) {
+        difficulty = diff;
+        this.games = games;
+        this.wins = wins;
+        this.losses = losses;
+        this.moves = moves;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    //  Returns the totals of this result and another.
+    SimulationResult combine(SimulationResult other) {
+        return new SimulationResult(difficulty, games + other.games, wins + other.wins,
+                losses + other.losses, moves + other.moves, 0);
+    }
+
+    //  Returns the same totals, timed at the given number of nanoseconds.
+    SimulationResult withElapsedNanos(long nanos) {
+        return new SimulationResult(difficulty, games, wins, losses, moves, nanos);
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getWins() {
+        return wins;
+    }
+
+    public long getLosses() {
+        return losses;
+    }
+
+    public long getUnfinished() {
+        return games - wins - losses;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getWinRate() {
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    public double getMovesPerGame() {
+        return games == 0 ? 0 : (double) moves / games;
+    }
+
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d games, win rate %.4f, %.2f moves per game, %.0f games per second",
+                difficulty, games, getWinRate(), getMovesPerGame(), getGamesPerSecond());
+    }
+
+}
@@ -0,0 +1,157 @@
+package sim;
+
+import game.Difficulty;
+import game.Game;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+public class Simulator {
+
+    //  The Simulator plays large numbers of games without a GUI, using a
+    //      MoveStrategy to choose every move. The games of a run are split in
+    //      half recursively into fork-join tasks until each task has at most
+    //      GAMES_PER_TASK games, and each task plays its games one after the
+    //      other on its own thread.
+
+    //  Every task has its own random generator and its own MoveStrategy, and
+    //      returns its own SimulationResult, so the tasks share nothing that
+    //      changes while they run. A task's generator is split from its
+    //      parent's generator when the parent task is divided. The splits
+    //      depend only on the number of games, so a run with a given seed
+    //      plays the same games no matter how many threads the pool has.
+
+    //  A strategy that stops making progress would otherwise play forever,
+    //      so a game is abandoned after twice as many moves as the board has
+    //      cells, and counted as unfinished.
+
+    public static final int GAMES_PER_TASK = 256;
+
+    private final ForkJoinPool pool;
+
+    public Simulator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public Simulator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    //  Plays the given number of games of one difficulty, with the given game
+    //      option flags. The supplier is called once per task, from the
+    //      task's thread, and must return a new strategy each time.
+    public SimulationResult run(Difficulty diff, byte optionFlags, long games, long seed,
+                                Supplier<? extends MoveStrategy> strategies) {
+        long start = System.nanoTime();
+        SimulationResult result = pool.invoke(new SimulationTask(diff, optionFlags, strategies,
+                games, diff.newGenerator(seed)));
+        return result.withElapsedNanos(System.nanoTime() - start);
+    }
+
+    //  Plays the given number of games of each difficulty in turn, returning
+    //      the results in the same order as the difficulties.
+    public Map<Difficulty, SimulationResult> run(List<Difficulty> difficulties, byte optionFlags, long games,
+                                                 long seed, Supplier<? extends MoveStrategy> strategies) {
+        Map<Difficulty, SimulationResult> results = new LinkedHashMap<>();
+        for (Difficulty diff : difficulties)
+            results.put(diff, run(diff, optionFlags, games, seed, strategies));
+        return results;
+    }
+
+    private static class SimulationTask extends RecursiveTask<SimulationResult> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Difficulty difficulty;
+        private final byte optionFlags;
+        private final Supplier<? extends MoveStrategy> strategies;
+        private final long games;
+        private final RandomGenerator.SplittableGenerator random;
+
+        SimulationTask(Difficulty diff, byte optionFlags, Supplier<? extends MoveStrategy> strategies,
+                       long games, RandomGenerator.SplittableGenerator random) {
+            difficulty = diff;
+            this.optionFlags = optionFlags;
+            this.strategies = strategies;
+            this.games = games;
+            this.random = random;
+        }
+
+        @Override
+        protected SimulationResult compute() {
+            if (games <= GAMES_PER_TASK)
+                return playGames();
+            SimulationTask left = new SimulationTask(difficulty, optionFlags, strategies,
+                    games / 2, random.split());
+            SimulationTask right = new SimulationTask(difficulty, optionFlags, strategies,
+                    games - games / 2, random);
+            left.fork();
+            SimulationResult rightResult = right.compute();
+            return left.join().combine(rightResult);
+        }
+
+        private SimulationResult playGames() {
+            MoveStrategy strategy = strategies.get();
+            long maxMoves = 2L * difficulty.getRows() * difficulty.getColumns();
+            long wins = 0, losses = 0, moves = 0;
+            for (long i=0; i<games; i++) {
+                Game game = new Game(difficulty, optionFlags, random);
+                strategy.newGame(game);
+                long gameMoves = 0;
+                while (game.getGameState() <= Game.IN_PROGRESS && gameMoves < maxMoves) {
+                    strategy.makeMove(game, random);
+                    gameMoves++;
+                }
+                if (game.getGameState() == Game.OVER_WIN)
+                    wins++;
+                else if (game.getGameState() == Game.OVER_LOSS)
+                    losses++;
+                moves += gameMoves;
+            }
+            return new SimulationResult(difficulty, games, wins, losses, moves, 0);
+        }
+    }
+
+    //  Parses a difficulty given on the command line, either as the name of
+    //      a default difficulty or as rows, columns and mines joined by "x".
+    static Difficulty parseDifficulty(String name) {
+        switch (name) {
+            case "beginner":
+                return Difficulty.BEGINNER;
+            case "intermediate":
+                return Difficulty.INTERMEDIATE;
+            case "expert":
+                return Difficulty.EXPERT;
+            default:
+                String[] parts = name.split("x");
+                return new Difficulty(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                        Integer.parseInt(parts[2]));
+        }
+    }
+
+    //  Runs a simulation from the command line. The arguments are a
+    //      difficulty, either beginner, intermediate, expert, or
+    //      rowsxcolsxmines, then the number of games, then an optional seed,
+    //      then an optional strategy, either random, solver, or probability.
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: Simulator <beginner|intermediate|expert|RxCxM> <games> [seed] [random|solver|probability]");
+            return;
+        }
+        Difficulty diff = parseDifficulty(args[0]);
+        long games = Long.parseLong(args[1]);
+        long seed = (args.length > 2) ? Long.parseLong(args[2]) : System.nanoTime();
+        Supplier<MoveStrategy> strategies = RandomStrategy::new;
+        if (args.length > 3 && args[3].equals("solver"))
+            strategies = SolverStrategy::new;
+        else if (args.length > 3 && args[3].equals("probability"))
+            strategies = () -> new SolverStrategy(true);
+        byte flags = (byte) (Game.FIRST_ALWAYS_BLANK | Game.AUTO_FLAG_LAST);
+        System.out.println(new Simulator().run(diff, flags, games, seed, strategies));
+    }
+
+}
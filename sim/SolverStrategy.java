@@ -0,0 +1,100 @@
+package sim;
+
+import board.Cell;
+import game.Difficulty;
+import game.Game;
+import solver.ProbabilityEngine;
+import solver.Solver;
+import java.util.random.RandomGenerator;
+
+public class SolverStrategy implements MoveStrategy {
+
+    //  Plays using a Solver. The first click is made in the middle of the
+    //      board. After that, every cell the Solver proves safe is clicked,
+    //      and only when there is none does the strategy guess, clicking a
+    //      random hidden cell that is not a proven mine. The Solver is
+    //      registered as a listener on each game, so it only looks at the
+    //      cells each move changed.
+
+    //  When created with guessByProbability set, a ProbabilityEngine is used
+    //      to guess instead, and the hidden cell least likely to be a mine is
+    //      clicked, with ties broken at random.
+
+    private final boolean guessByProbability;
+    private Solver solver;
+    private ProbabilityEngine engine;
+
+    public SolverStrategy() {
+        this(false);
+    }
+
+    public SolverStrategy(boolean guessByProbability) {
+        this.guessByProbability = guessByProbability;
+    }
+
+    @Override
+    public void newGame(Game game) {
+        Difficulty diff = game.getDifficulty();
+        solver = new Solver(diff.getRows(), diff.getColumns(), game::getViewState);
+        game.addGameListener(solver);
+        if (guessByProbability)
+            engine = new ProbabilityEngine(diff.getRows(), diff.getColumns());
+    }
+
+    @Override
+    public void makeMove(Game game, RandomGenerator random) {
+        Difficulty diff = game.getDifficulty();
+        int rows = diff.getRows();
+        int cols = diff.getColumns();
+        if (game.getGameState() == Game.NOT_STARTED) {
+            game.leftClickCell(rows / 2, cols / 2);
+            return;
+        }
+        solver.solve();
+        int safe = solver.nextSafeCell();
+        if (safe >= 0) {
+            game.leftClickCell(safe / cols, safe % cols);
+            return;
+        }
+        double[] probabilities = null;
+        if (guessByProbability)
+            probabilities = engine.compute(game::getViewState, game.getMinesRemaining());
+        if (probabilities != null) {
+            clickLeastLikely(game, probabilities, random);
+            return;
+        }
+        int candidates = 0;
+        for (int i=0; i<rows*cols; i++)
+            if (isCandidate(game, i, cols))
+                candidates++;
+        if (candidates == 0)
+            return;
+        int chosen = random.nextInt(candidates);
+        for (int i=0; i<rows*cols; i++)
+            if (isCandidate(game, i, cols) && chosen-- == 0) {
+                game.leftClickCell(i / cols, i % cols);
+                return;
+            }
+    }
+
+    private void clickLeastLikely(Game game, double[] probabilities, RandomGenerator random) {
+        int cols = game.getDifficulty().getColumns();
+        int best = -1, ties = 0;
+        for (int i=0; i<probabilities.length; i++) {
+            if (!isCandidate(game, i, cols))
+                continue;
+            if (best == -1 || probabilities[i] < probabilities[best]) {
+                best = i;
+                ties = 1;
+            } else if (probabilities[i] == probabilities[best] && random.nextInt(++ties) == 0)
+                best = i;
+        }
+        if (best != -1)
+            game.leftClickCell(best / cols, best % cols);
+    }
+
+    private boolean isCandidate(Game game, int index, int cols) {
+        return game.getViewState(index / cols, index % cols) == Cell.UNREVEALED && !solver.isMine(index);
+    }
+
+}
@@ -0,0 +1,74 @@
+package sim;
+
+import board.BoardMetrics;
+import game.Difficulty;
+import java.util.IntSummaryStatistics;
+
+public class SurveyResult {
+
+    //  The statistics of the BoardMetrics of a batch of boards of one
+    //      difficulty. A SurveyResult is a mutable container for a parallel
+    //      stream's collect: each thread accepts the boards it measured into
+    //      its own SurveyResult, and the results are combined as the stream
+    //      joins them, so no statistics are shared between threads.
+
+    private final Difficulty difficulty;
+    private final IntSummaryStatistics threeBV;
+    private final IntSummaryStatistics openings;
+    private final IntSummaryStatistics islands;
+
+    SurveyResult(Difficulty diff) {
+        difficulty = diff;
+        threeBV = new IntSummaryStatistics();
+        openings = new IntSummaryStatistics();
+        islands = new IntSummaryStatistics();
+    }
+
+    void accept(BoardMetrics metrics) {
+        threeBV.accept(metrics.getThreeBV());
+        openings.accept(metrics.getOpenings());
+        islands.accept(metrics.getIslands());
+    }
+
+    void combine(SurveyResult other) {
+        threeBV.combine(other.threeBV);
+        openings.combine(other.openings);
+        islands.combine(other.islands);
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public long getBoards() {
+        return threeBV.getCount();
+    }
+
+    public IntSummaryStatistics getThreeBV() {
+        return threeBV;
+    }
+
+    public IntSummaryStatistics getOpenings() {
+        return openings;
+    }
+
+    public IntSummaryStatistics getIslands() {
+        return islands;
+    }
+
+    //  The mean 3BV per safe cell. Boards of different sizes need different
+    //      numbers of clicks just because of their size, so difficulties are
+    //      ranked by how many clicks each safe cell takes on average instead.
+    public double getThreeBVPerSafeCell() {
+        long safeCells = (long) difficulty.getRows() * difficulty.getColumns() - difficulty.getMines();
+        return (safeCells <= 0) ? 0 : threeBV.getAverage() / safeCells;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d boards, 3BV %.2f (%d-%d), %.4f 3BV per safe cell, %.2f openings, %.2f islands",
+                difficulty, getBoards(), threeBV.getAverage(), threeBV.getMin(), threeBV.getMax(),
+                getThreeBVPerSafeCell(), openings.getAverage(), islands.getAverage());
+    }
+
+}
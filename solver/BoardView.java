@@ -0,0 +1,13 @@
+package solver;
+
+@FunctionalInterface
+public interface BoardView {
+
+    //  Read-only access to the visible state of a board, as seen by a player.
+    //      Returns the view state constant from Cell for the given cell, so
+    //      that both Board::getViewState and Game::getViewState can be used
+    //      wherever a BoardView is needed.
+
+    int getViewState(int row, int col);
+
+}
@@ -0,0 +1,154 @@
+package solver;
+
+import board.Board;
+import game.UpdateTracker;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NoGuessGenerator {
+
+    //  A NoGuessGenerator finds mine layouts that can be solved from the first
+    //      click without guessing. A layout is tried by populating a scratch
+    //      PackedBoard, making the first click, and letting a Solver reveal
+    //      every cell it can prove safe. The layout is accepted if that
+    //      reveals every cell that is not a mine, or if the Solver finds every
+    //      mine, which proves the remaining hidden cells safe by counting. The
+    //      Solver's rules are not the strongest possible, so a few layouts
+    //      that a very good player could solve are rejected, but no accepted
+    //      layout needs a guess.
+
+    //  Candidate layouts are numbered, and candidate i is populated from a
+    //      SplittableRandom seeded from the base seed and i. Several threads
+    //      claim candidate numbers from a shared counter and test them
+    //      speculatively. The lowest-numbered verified candidate wins, and
+    //      the threads stop claiming once every candidate below the current
+    //      best has been claimed, so the result depends only on the base seed
+    //      and not on how the threads happened to be scheduled. The calling
+    //      thread takes part in the search as well, so it never sits idle.
+
+    //  The search gives up when its time budget runs out. Dense boards may
+    //      have no solvable layouts at all, so callers must be ready to fall
+    //      back to an ordinary layout.
+
+    public static final long DEFAULT_BUDGET_MILLIS = 250;
+
+    private static final long CANDIDATE_STEP = 0x9E3779B97F4A7C15L;
+
+    private final ForkJoinPool pool;
+    private final int helpers;
+
+    public NoGuessGenerator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public NoGuessGenerator(ForkJoinPool pool) {
+        this.pool = pool;
+        helpers = Math.max(pool.getParallelism() - 1, 0);
+    }
+
+    //  Returns the seed of a layout that is solvable without guessing from a
+    //      first click at (row, col), or an empty OptionalLong if none was
+    //      found within the budget. Populating a board with the same
+    //      arguments from a SplittableRandom with the returned seed gives
+    //      that layout.
+    public OptionalLong findSeed(int rows, int cols, int mines, int row, int col, boolean firstAlwaysBlank,
+                                 long baseSeed, long budgetMillis) {
+        long deadline = System.nanoTime() + budgetMillis * 1000000;
+        Search search = new Search(rows, cols, mines, row, col, firstAlwaysBlank, baseSeed, deadline);
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i=0; i<helpers; i++)
+            workers.add(CompletableFuture.runAsync(search::run, pool));
+        search.run();
+        for (CompletableFuture<Void> worker : workers)
+            worker.join();
+        int best = search.best.get();
+        if (best == Integer.MAX_VALUE)
+            return OptionalLong.empty();
+        return OptionalLong.of(candidateSeed(baseSeed, best));
+    }
+
+    //  Returns true if the given layout, in the form returned by
+    //      Board.getLayout, can be solved without guessing from a first click
+    //      at (row, col).
+    public static boolean isSolvable(byte[] layout, int rows, int cols, int row, int col) {
+        UpdateTracker changes = new UpdateTracker(rows, cols);
+        Board board = Board.create(Board.PACKED_ENGINE, rows, cols, changes);
+        board.populateBoard(layout);
+        int mines = 0;
+        for (byte cell : layout)
+            if ((cell & Board.LAYOUT_MINE) != 0)
+                mines++;
+        return solvesFrom(board, changes, mines, row, col);
+    }
+
+    //  Plays a populated scratch board, clicking only cells the Solver proves
+    //      safe, and returns true if that wins.
+    private static boolean solvesFrom(Board board, UpdateTracker changes, int mines, int row, int col) {
+        int rows = board.getRows();
+        int cols = board.getColumns();
+        if (board.leftClickCell(row, col))
+            return false;
+        Solver solver = new Solver(rows, cols, board::getViewState);
+        changes.forEachDirty(index -> { });
+        int safe;
+        do {
+            solver.solve();
+            safe = solver.nextSafeCell();
+            if (safe >= 0) {
+                board.leftClickCell(safe / cols, safe % cols);
+                changes.forEachDirty(solver::cellChanged);
+            }
+        } while (safe >= 0);
+        return board.getHiddenUnflagged() == mines || solver.getMinesFound() == mines;
+    }
+
+    private static long candidateSeed(long baseSeed, int candidate) {
+        return baseSeed + candidate * CANDIDATE_STEP;
+    }
+
+    //  The state shared by the threads of one search: the next candidate to
+    //      claim, and the lowest candidate verified so far.
+    private static final class Search {
+        private final int rows, cols, mines, row, col;
+        private final boolean firstAlwaysBlank;
+        private final long baseSeed, deadline;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger best = new AtomicInteger(Integer.MAX_VALUE);
+
+        Search(int rows, int cols, int mines, int row, int col, boolean firstAlwaysBlank,
+               long baseSeed, long deadline) {
+            this.rows = rows;
+            this.cols = cols;
+            this.mines = mines;
+            this.row = row;
+            this.col = col;
+            this.firstAlwaysBlank = firstAlwaysBlank;
+            this.baseSeed = baseSeed;
+            this.deadline = deadline;
+        }
+
+        void run() {
+            while (System.nanoTime() < deadline) {
+                int candidate = next.getAndIncrement();
+                if (candidate >= best.get() || candidate < 0)
+                    return;
+                if (isSolvable(candidateSeed(baseSeed, candidate)))
+                    best.accumulateAndGet(candidate, Math::min);
+            }
+        }
+
+        //  Plays the candidate layout on a scratch board.
+        private boolean isSolvable(long seed) {
+            UpdateTracker changes = new UpdateTracker(rows, cols);
+            Board board = Board.create(Board.PACKED_ENGINE, rows, cols, changes);
+            board.populateBoard(row, col, mines, firstAlwaysBlank, new SplittableRandom(seed));
+            return solvesFrom(board, changes, mines, row, col);
+        }
+    }
+
+}
@@ -0,0 +1,600 @@
+package solver;
+
+import board.Cell;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class ProbabilityEngine {
+
+    //  The ProbabilityEngine computes, for every hidden cell, the exact
+    //      probability that it is a mine, given the visible numbers and the
+    //      number of mines not yet flagged. Every arrangement of the unflagged
+    //      mines that agrees with all visible numbers is counted as equally
+    //      likely. Unlike the Solver, it trusts flags: a flagged cell counts
+    //      as a mine, and the mine count passed in is the mines-minus-flags
+    //      count shown by the game.
+
+    //  Hidden cells next to a revealed number form the frontier. Two frontier
+    //      cells are in the same component if a chain of numbers links them,
+    //      found with a union-find over the frontier. Each component is
+    //      enumerated on its own, by a backtracking search that abandons a
+    //      branch as soon as a number is over- or under-satisfied, and the
+    //      result is kept as a count of solutions for each number of mines in
+    //      the component, along with how many of those solutions put a mine
+    //      on each of its cells. Components are enumerated in parallel on a
+    //      fork-join pool.
+
+    //  Cells away from the frontier are all alike, so they are handled
+    //      together: if the components hold m mines in total, the rest of
+    //      the mines can be placed among the other cells in C(others, mines
+    //      - m) ways. The components' counts are combined by convolution,
+    //      arranged as a binary tree over the components. Going back down the
+    //      tree gives each component the total weight of everything outside
+    //      it for each of its own mine counts, so no component is ever
+    //      divided back out of the total. All counts are scaled to keep them
+    //      within the range of a double, which does not change any ratio.
+    //      On a large board, the number of ways to place the other mines
+    //      changes by orders of magnitude with every mine in the components,
+    //      and the components' counts change just as fast the other way, so
+    //      either one alone would underflow. Every count for m mines is
+    //      therefore multiplied by e^(theta*m), and every outside weight by
+    //      e^(-theta*m), which leaves their products unchanged. theta is the
+    //      slope of the logarithm of the outside weight at the expected number
+    //      of frontier mines, so that both sides stay close to flat there.
+
+    //  Enumeration is exponential in the size of a component, but a move
+    //      usually changes only one or two components. Enumerated components
+    //      are therefore remembered between calls, keyed by their cells and
+    //      the values of their numbers, and only new components are
+    //      enumerated again.
+
+    private static final byte HIDDEN = -1;
+    private static final byte FLAG = -2;
+    private static final byte OTHER = -3;
+
+    private final int nRows, nCols;
+    private final ForkJoinPool pool;
+    private HashMap<ComponentKey, Component> cache;
+
+    public ProbabilityEngine(int rows, int cols) {
+        this(rows, cols, ForkJoinPool.commonPool());
+    }
+
+    public ProbabilityEngine(int rows, int cols, ForkJoinPool pool) {
+        nRows = rows;
+        nCols = cols;
+        this.pool = pool;
+        cache = new HashMap<>();
+    }
+
+    //  Returns the probability that each cell is a mine, indexed by flat cell
+    //      index. Revealed cells have probability 0, and flagged cells 1.
+    //      Returns null if no arrangement of mines fits the visible board,
+    //      which can only happen when a flag is wrong.
+    public double[] compute(BoardView view, int minesRemaining) {
+        int size = nRows * nCols;
+        byte[] state = new byte[size];
+        for (int i=0; i<size; i++) {
+            int viewState = view.getViewState(i / nCols, i % nCols);
+            if (viewState <= Cell.REVEALED_8)
+                state[i] = (byte) viewState;
+            else if (viewState == Cell.UNREVEALED || viewState == Cell.QUESTION_MARKED)
+                state[i] = HIDDEN;
+            else if (viewState == Cell.FLAGGED)
+                state[i] = FLAG;
+            else
+                state[i] = OTHER;
+        }
+
+        //  Find the numbers with hidden neighbors, and join their hidden
+        //      neighbors into components.
+        int[] parent = new int[size];
+        Arrays.fill(parent, -1);
+        int[] constraintCells = new int[16];
+        int[] needs = new int[16];
+        int constraints = 0;
+        for (int i=0; i<size; i++) {
+            if (state[i] <= 0)
+                continue;
+            int row = i / nCols;
+            int col = i % nCols;
+            int hidden = 0, flags = 0, first = -1;
+            for (int r=row-1; r<=row+1; r++)
+                for (int c=col-1; c<=col+1; c++) {
+                    if (r < 0 || c < 0 || r >= nRows || c >= nCols)
+                        continue;
+                    int neighbor = r*nCols + c;
+                    if (state[neighbor] == FLAG)
+                        flags++;
+                    else if (state[neighbor] == HIDDEN) {
+                        hidden++;
+                        if (parent[neighbor] == -1)
+                            parent[neighbor] = neighbor;
+                        if (first == -1)
+                            first = neighbor;
+                        else
+                            union(parent, first, neighbor);
+                    }
+                }
+            int need = state[i] - flags;
+            if (need < 0 || need > hidden)
+                return null;
+            if (hidden == 0)
+                continue;
+            if (constraints == constraintCells.length) {
+                constraintCells = Arrays.copyOf(constraintCells, constraints * 2);
+                needs = Arrays.copyOf(needs, constraints * 2);
+            }
+            constraintCells[constraints] = i;
+            needs[constraints++] = need;
+        }
+
+        //  Number the components, and collect their cells and numbers in
+        //      ascending order of index.
+        int[] componentOf = new int[size];
+        int components = 0;
+        int others = 0;
+        for (int i=0; i<size; i++) {
+            if (parent[i] == -1) {
+                if (state[i] == HIDDEN)
+                    others++;
+                continue;
+            }
+            int root = find(parent, i);
+            if (root == i)
+                componentOf[i] = components++;
+        }
+        int[] cellCounts = new int[components];
+        int[] constraintCounts = new int[components];
+        for (int i=0; i<size; i++)
+            if (parent[i] != -1)
+                cellCounts[componentOf[find(parent, i)]]++;
+        int[] constraintComponent = new int[constraints];
+        for (int j=0; j<constraints; j++) {
+            int cell = constraintCells[j];
+            int component = -1;
+            for (int r=cell/nCols-1; r<=cell/nCols+1 && component == -1; r++)
+                for (int c=cell%nCols-1; c<=cell%nCols+1; c++)
+                    if (r >= 0 && c >= 0 && r < nRows && c < nCols && parent[r*nCols + c] != -1) {
+                        component = componentOf[find(parent, r*nCols + c)];
+                        break;
+                    }
+            constraintComponent[j] = component;
+            constraintCounts[component]++;
+        }
+        int[][] componentCells = new int[components][];
+        int[][] componentKeys = new int[components][];
+        for (int k=0; k<components; k++) {
+            componentCells[k] = new int[cellCounts[k]];
+            componentKeys[k] = new int[cellCounts[k] + 2*constraintCounts[k]];
+            cellCounts[k] = 0;
+        }
+        for (int i=0; i<size; i++)
+            if (parent[i] != -1) {
+                int k = componentOf[find(parent, i)];
+                componentCells[k][cellCounts[k]] = i;
+                componentKeys[k][cellCounts[k]++] = i;
+            }
+        for (int j=0; j<constraints; j++) {
+            int k = constraintComponent[j];
+            componentKeys[k][cellCounts[k]++] = constraintCells[j];
+            componentKeys[k][cellCounts[k]++] = needs[j];
+        }
+
+        //  Reuse every component already enumerated, and enumerate the rest
+        //      in parallel.
+        HashMap<ComponentKey, Component> current = new HashMap<>();
+        Component[] solved = new Component[components];
+        List<Component> unsolved = new ArrayList<>();
+        for (int k=0; k<components; k++) {
+            ComponentKey key = new ComponentKey(componentKeys[k]);
+            Component component = current.get(key);
+            if (component == null)
+                component = cache.get(key);
+            if (component == null) {
+                int[] keyData = componentKeys[k];
+                int n = componentCells[k].length;
+                int m = (keyData.length - n) / 2;
+                int[] cells = new int[m];
+                int[] values = new int[m];
+                for (int j=0; j<m; j++) {
+                    cells[j] = keyData[n + 2*j];
+                    values[j] = keyData[n + 2*j + 1];
+                }
+                component = new Component(componentCells[k], cells, values, nRows, nCols);
+                unsolved.add(component);
+            }
+            current.put(key, component);
+            solved[k] = component;
+        }
+        cache = current;
+        if (!unsolved.isEmpty())
+            pool.invoke(new EnumerationTask(unsolved));
+
+        return combine(state, solved, others, minesRemaining);
+    }
+
+    //  Combines the enumerated components with the cells away from the
+    //      frontier, as described at the top of the class.
+    private double[] combine(byte[] state, Component[] components, int others, int mines) {
+        double[] probabilities = new double[state.length];
+        for (int i=0; i<state.length; i++)
+            if (state[i] == FLAG)
+                probabilities[i] = 1;
+        for (Component component : components)
+            if (component.weights.isEmpty())
+                return null;
+
+        //  outside holds, for each total number of mines m in the
+        //      components, a value proportional to the number of ways to
+        //      place the remaining mines among the other cells.
+        int frontier = 0;
+        for (Component component : components)
+            frontier += component.cells.length;
+        int maxMines = Math.min(frontier, mines);
+        if (maxMines < 0 || mines - maxMines > others)
+            return null;
+        double[] lnFact = new double[others + 1];
+        for (int i=1; i<=others; i++)
+            lnFact[i] = lnFact[i - 1] + Math.log(i);
+        int minMines = Math.max(0, mines - others);
+        double[] lnOutside = new double[maxMines - minMines + 1];
+        for (int m=minMines; m<=maxMines; m++) {
+            int rest = mines - m;
+            lnOutside[m - minMines] = lnFact[others] - lnFact[rest] - lnFact[others - rest];
+        }
+        int expected = (int) Math.round((double) mines * frontier / (frontier + others));
+        int slopeAt = Math.min(Math.max(expected - minMines, 0), lnOutside.length - 2);
+        double theta = (slopeAt < 0) ? 0 : lnOutside[slopeAt + 1] - lnOutside[slopeAt];
+        double maxLn = Double.NEGATIVE_INFINITY;
+        for (int i=0; i<lnOutside.length; i++) {
+            lnOutside[i] -= theta * (minMines + i);
+            maxLn = Math.max(maxLn, lnOutside[i]);
+        }
+        double[] outsideValues = new double[lnOutside.length];
+        for (int i=0; i<lnOutside.length; i++)
+            outsideValues[i] = Math.exp(lnOutside[i] - maxLn);
+        Weights outside = new Weights(minMines, outsideValues);
+        for (Component component : components)
+            component.tilted = component.weights.tilt(theta);
+
+        Weights total = (components.length == 0) ? new Weights(0, new double[] {1})
+                : convolveRange(components, 0, components.length, maxMines);
+        double weight = 0, otherMines = 0;
+        for (int i=0; i<total.values.length; i++) {
+            int m = total.offset + i;
+            double w = total.values[i] * outside.get(m);
+            weight += w;
+            otherMines += w * (mines - m);
+        }
+        if (weight == 0)
+            return null;
+        if (others > 0) {
+            double otherProbability = otherMines / weight / others;
+            for (int i=0; i<state.length; i++)
+                if (state[i] == HIDDEN)
+                    probabilities[i] = otherProbability;
+        }
+        if (components.length > 0)
+            distribute(components, 0, components.length, outside, probabilities);
+        return probabilities;
+    }
+
+    //  Returns the convolution of the solution counts of the components in
+    //      the given range, cut off at maxMines. The halves of every range are
+    //      kept in the first component of the range's right half, so that
+    //      distribute can use them without convolving again.
+    private Weights convolveRange(Component[] components, int lo, int hi, int maxMines) {
+        if (hi - lo == 1)
+            return components[lo].tilted;
+        int mid = (lo + hi) >>> 1;
+        Weights left = convolveRange(components, lo, mid, maxMines);
+        Weights right = convolveRange(components, mid, hi, maxMines);
+        components[mid].leftTotal = left;
+        components[mid].rightTotal = right;
+        int offset = left.offset + right.offset;
+        int length = Math.min(left.values.length + right.values.length - 1, maxMines - offset + 1);
+        double[] result = new double[Math.max(length, 0)];
+        for (int a=0; a<left.values.length && a<result.length; a++)
+            for (int b=0; b<right.values.length && a+b<result.length; b++)
+                result[a + b] += left.values[a] * right.values[b];
+        return new Weights(offset, result).scale();
+    }
+
+    //  Passes the weight of everything outside each half of the range down
+    //      the tree, and at each component, computes its cells' probabilities.
+    private void distribute(Component[] components, int lo, int hi, Weights outside, double[] probabilities) {
+        if (hi - lo == 1) {
+            components[lo].addProbabilities(outside, probabilities);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        Weights left = components[mid].leftTotal;
+        Weights right = components[mid].rightTotal;
+        distribute(components, lo, mid, outsideOf(left, right, outside), probabilities);
+        distribute(components, mid, hi, outsideOf(right, left, outside), probabilities);
+    }
+
+    //  Returns, for each mine count of one half, the total weight of the
+    //      other half and everything outside both.
+    private static Weights outsideOf(Weights half, Weights sibling, Weights outside) {
+        double[] result = new double[half.values.length];
+        for (int a=0; a<result.length; a++)
+            for (int b=0; b<sibling.values.length; b++)
+                result[a] += sibling.values[b] * outside.get(half.offset + a + sibling.offset + b);
+        return new Weights(half.offset, result).scale();
+    }
+
+    //  Weights indexed by a number of mines, starting at offset.
+    private static final class Weights {
+        private final int offset;
+        private final double[] values;
+
+        Weights(int offset, double[] values) {
+            this.offset = offset;
+            this.values = values;
+        }
+
+        boolean isEmpty() {
+            return values.length == 0;
+        }
+
+        double get(int mines) {
+            int i = mines - offset;
+            return (i >= 0 && i < values.length) ? values[i] : 0;
+        }
+
+        //  Divides every entry by the largest, so that values never overflow.
+        Weights scale() {
+            double max = 0;
+            for (double value : values)
+                max = Math.max(max, value);
+            if (max > 0)
+                for (int i=0; i<values.length; i++)
+                    values[i] /= max;
+            return this;
+        }
+
+        //  Returns a scaled copy with each entry multiplied by e^(theta*k),
+        //      counting k from offset. The constant factor e^(theta*offset)
+        //      is left out, as it is the same for every entry.
+        Weights tilt(double theta) {
+            double[] result = new double[values.length];
+            double max = Double.NEGATIVE_INFINITY;
+            for (int k=0; k<values.length; k++)
+                if (values[k] > 0)
+                    max = Math.max(max, Math.log(values[k]) + theta * k);
+            for (int k=0; k<values.length; k++)
+                if (values[k] > 0)
+                    result[k] = Math.exp(Math.log(values[k]) + theta * k - max);
+            return new Weights(offset, result);
+        }
+    }
+
+    private static int find(int[] parent, int index) {
+        while (parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB)
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+    }
+
+    //  Identifies a component by its cells followed by each of its numbers'
+    //      index and remaining mine count.
+    private static final class ComponentKey {
+        private final int[] data;
+        private final int hash;
+
+        ComponentKey(int[] data) {
+            this.data = data;
+            hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ComponentKey && Arrays.equals(data, ((ComponentKey) other).data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class EnumerationTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Component> components;
+
+        EnumerationTask(List<Component> components) {
+            this.components = components;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(components);
+        }
+    }
+
+    //  One independent group of frontier cells and the numbers that touch
+    //      them. After enumeration, weights.get(k) is proportional to the
+    //      number of solutions with k mines in the component, and
+    //      cellWeights[i][k - weights.offset]
+    //      to the number of those solutions with a mine on cell i.
+    private static final class Component extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] cells;
+        private final int[] constraintCells;
+        private final int[] needs;
+        private final int nRows, nCols;
+        private Weights weights;
+        private Weights tilted;
+        private double[][] cellWeights;
+
+        //  Scratch space for the enumeration and for combine. Only the
+        //      thread enumerating this component uses the first group.
+        private int[][] cellConstraints;
+        private int[] remaining, unassigned;
+        private boolean[] mine;
+        private int[] order;
+        private long[] counts;
+        private long[][] cellCounts;
+        private Weights leftTotal, rightTotal;
+
+        Component(int[] cells, int[] constraintCells, int[] needs, int rows, int cols) {
+            this.cells = cells;
+            this.constraintCells = constraintCells;
+            this.needs = needs;
+            nRows = rows;
+            nCols = cols;
+        }
+
+        @Override
+        protected void compute() {
+            int n = cells.length;
+            int m = constraintCells.length;
+            int[][] members = new int[m][];
+            int[] memberships = new int[n];
+            for (int j=0; j<m; j++) {
+                int row = constraintCells[j] / nCols;
+                int col = constraintCells[j] % nCols;
+                int[] found = new int[8];
+                int count = 0;
+                for (int r=row-1; r<=row+1; r++)
+                    for (int c=col-1; c<=col+1; c++) {
+                        if (r < 0 || c < 0 || r >= nRows || c >= nCols)
+                            continue;
+                        int local = Arrays.binarySearch(cells, r*nCols + c);
+                        if (local >= 0) {
+                            found[count++] = local;
+                            memberships[local]++;
+                        }
+                    }
+                members[j] = Arrays.copyOf(found, count);
+            }
+            cellConstraints = new int[n][];
+            for (int i=0; i<n; i++) {
+                cellConstraints[i] = new int[memberships[i]];
+                memberships[i] = 0;
+            }
+            for (int j=0; j<m; j++)
+                for (int local : members[j])
+                    cellConstraints[local][memberships[local]++] = j;
+
+            //  Assign cells in breadth-first order through the numbers, so
+            //      that each number is completed soon after it is started
+            //      and bad branches are cut off early.
+            order = new int[n];
+            boolean[] queued = new boolean[n];
+            int head = 0, tail = 0;
+            for (int start=0; start<n; start++) {
+                if (queued[start])
+                    continue;
+                queued[start] = true;
+                order[tail++] = start;
+                while (head < tail) {
+                    int local = order[head++];
+                    for (int j : cellConstraints[local])
+                        for (int other : members[j])
+                            if (!queued[other]) {
+                                queued[other] = true;
+                                order[tail++] = other;
+                            }
+                }
+            }
+
+            remaining = needs.clone();
+            unassigned = new int[m];
+            for (int j=0; j<m; j++)
+                unassigned[j] = members[j].length;
+            mine = new boolean[n];
+            counts = new long[n + 1];
+            cellCounts = new long[n][n + 1];
+            search(0, 0);
+
+            int bottom = 0, top = n;
+            while (top >= 0 && counts[top] == 0)
+                top--;
+            while (bottom < top && counts[bottom] == 0)
+                bottom++;
+            double[] values = new double[top - bottom + 1];
+            cellWeights = new double[n][values.length];
+            double max = 0;
+            for (int k=bottom; k<=top; k++)
+                max = Math.max(max, counts[k]);
+            for (int k=bottom; k<=top; k++) {
+                values[k - bottom] = counts[k] / max;
+                for (int i=0; i<n; i++)
+                    cellWeights[i][k - bottom] = cellCounts[i][k] / max;
+            }
+            weights = new Weights(bottom, values);
+            cellConstraints = null;
+            remaining = null;
+            unassigned = null;
+            mine = null;
+            order = null;
+            counts = null;
+            cellCounts = null;
+        }
+
+        private void search(int depth, int mines) {
+            if (depth == order.length) {
+                counts[mines]++;
+                for (int i=0; i<mine.length; i++)
+                    if (mine[i])
+                        cellCounts[i][mines]++;
+                return;
+            }
+            int local = order[depth];
+            for (int value=0; value<=1; value++) {
+                boolean valid = true;
+                for (int j : cellConstraints[local]) {
+                    remaining[j] -= value;
+                    unassigned[j]--;
+                    if (remaining[j] < 0 || remaining[j] > unassigned[j])
+                        valid = false;
+                }
+                if (valid) {
+                    mine[local] = (value == 1);
+                    search(depth + 1, mines + value);
+                    mine[local] = false;
+                }
+                for (int j : cellConstraints[local]) {
+                    remaining[j] += value;
+                    unassigned[j]++;
+                }
+            }
+        }
+
+        //  Given the weight of everything outside this component for each of
+        //      its mine counts, stores the probability of each of its cells.
+        void addProbabilities(Weights outside, double[] probabilities) {
+            double total = 0;
+            double[] factors = new double[weights.values.length];
+            for (int k=0; k<factors.length; k++) {
+                if (weights.values[k] > 0)
+                    factors[k] = tilted.values[k] / weights.values[k] * outside.get(weights.offset + k);
+                total += weights.values[k] * factors[k];
+            }
+            for (int i=0; i<cells.length; i++) {
+                double cell = 0;
+                for (int k=0; k<factors.length; k++)
+                    cell += cellWeights[i][k] * factors[k];
+                probabilities[cells[i]] = (total == 0) ? 0 : cell / total;
+            }
+        }
+    }
+
+}
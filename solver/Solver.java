@@ -0,0 +1,264 @@
+package solver;
+
+import board.Cell;
+import game.GameListener;
+import game.UpdateTracker;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+public class Solver implements GameListener {
+
+    //  A Solver finds every cell that can be proven safe or proven to be a
+    //      mine from the numbers visible on a board, using only what a player
+    //      can see. Flags are ignored, as a flag is only the player's guess.
+
+    //  Each revealed number is a constraint: its hidden neighbors that are
+    //      not yet known to be safe or mines hold exactly its number minus
+    //      its known-mine neighbors. Two rules are applied to the
+    //      constraints:
+    //
+    //      Single point: if a constraint's remaining count is zero, all of
+    //          its unknown neighbors are safe, and if it equals the number of
+    //          unknown neighbors, all of them are mines.
+    //      Pairwise: for two constraints A and B that share unknown cells,
+    //          the cells only A touches and the cells only B touches differ
+    //          in their mine counts by exactly the difference of the two
+    //          remaining counts. If that difference equals the number of
+    //          cells only B touches, those are all mines and the cells only A
+    //          touches are all safe. This includes the subset rule, where
+    //          only A touches no cells at all.
+    //
+    //      Two numbers can only share an unknown cell if they are at most two
+    //      rows and two columns apart, so the unknown neighbors of both are
+    //      stored as bit masks over the 7x7 area around the first one, and
+    //      each rule is a few mask operations.
+
+    //  The Solver is incremental. It keeps its own copy of the numbers it
+    //      has seen, and a queue of constraints to evaluate, for which it
+    //      uses an UpdateTracker. Revealing a cell queues that cell and every
+    //      revealed neighbor, and deducing a cell queues every revealed
+    //      neighbor of the deduced cell. solve() only evaluates the queued
+    //      constraints, each against the constraints up to two cells away,
+    //      so the work after a move is proportional to the area the move
+    //      changed rather than to the size of the board. Registered as a
+    //      GameListener, the Solver is told about revealed cells directly;
+    //      otherwise, cellChanged must be called for each changed cell.
+
+    public static final int UNKNOWN = 0;
+    public static final int SAFE = 1;
+    public static final int MINE = 2;
+
+    private static final byte HIDDEN = -1;
+    private static final byte NOT_A_NUMBER = -2;
+    private static final int WINDOW = 7;
+
+    private final int nRows, nCols;
+    private final BoardView view;
+    private final byte[] numbers;
+    private final byte[] knowledge;
+    private final UpdateTracker pending;
+    private final IntConsumer evaluator;
+    private int[] safeCells;
+    private int safeHead, safeTail;
+    private int minesFound;
+
+    //  Set by unknownMask to the remaining mine count of the constraint it
+    //      was called on, so that the mask can be returned without creating
+    //      an object.
+    private int remaining;
+
+    public Solver(int rows, int cols, BoardView view) {
+        nRows = rows;
+        nCols = cols;
+        this.view = view;
+        numbers = new byte[rows * cols];
+        knowledge = new byte[rows * cols];
+        pending = new UpdateTracker(rows, cols);
+        evaluator = this::evaluate;
+        safeCells = new int[16];
+        reset();
+    }
+
+    //  Forgets everything, and reads the whole board again. Used when the
+    //      Solver is created, and when it is reused for a new game.
+    public void reset() {
+        Arrays.fill(numbers, HIDDEN);
+        Arrays.fill(knowledge, (byte) UNKNOWN);
+        pending.forEachDirty(index -> { });
+        safeHead = 0;
+        safeTail = 0;
+        minesFound = 0;
+        for (int i=0; i<numbers.length; i++)
+            if (view.getViewState(i / nCols, i % nCols) != Cell.UNREVEALED)
+                cellChanged(i);
+    }
+
+    @Override
+    public void cellsChanged(int type, int[] cells, int count) {
+        if (type != GameListener.CELLS_REVEALED)
+            return;
+        for (int i=0; i<count; i++)
+            cellChanged(cells[i]);
+    }
+
+    //  Reads the cell at the given flat index again. If it is now a revealed
+    //      number, it and its revealed neighbors are queued for evaluation.
+    public void cellChanged(int index) {
+        int row = index / nCols;
+        int col = index % nCols;
+        int viewState = view.getViewState(row, col);
+        byte number;
+        if (viewState <= Cell.REVEALED_8)
+            number = (byte) viewState;
+        else if (viewState == Cell.UNREVEALED || viewState == Cell.FLAGGED || viewState == Cell.QUESTION_MARKED)
+            number = HIDDEN;
+        else
+            number = NOT_A_NUMBER;
+        if (number == numbers[index])
+            return;
+        numbers[index] = number;
+        if (number >= 0) {
+            if (knowledge[index] == UNKNOWN)
+                knowledge[index] = SAFE;
+            queueNeighbors(row, col);
+        }
+    }
+
+    //  Evaluates every queued constraint, including those queued by
+    //      deductions made along the way, until no more can be made.
+    public void solve() {
+        pending.forEachDirty(evaluator);
+    }
+
+    public int getKnowledge(int index) {
+        return knowledge[index];
+    }
+
+    public boolean isSafe(int index) {
+        return knowledge[index] == SAFE;
+    }
+
+    public boolean isMine(int index) {
+        return knowledge[index] == MINE;
+    }
+
+    public int getMinesFound() {
+        return minesFound;
+    }
+
+    //  Returns the flat index of a cell proven safe that is still hidden, or
+    //      -1 if there is none. Each cell is returned at most once. The cell
+    //      may be flagged, in which case the flag must be removed before the
+    //      cell can be clicked.
+    public int nextSafeCell() {
+        while (safeHead < safeTail) {
+            int index = safeCells[safeHead++];
+            if (numbers[index] == HIDDEN)
+                return index;
+        }
+        safeHead = 0;
+        safeTail = 0;
+        return -1;
+    }
+
+    //  Applies both rules to the constraint at the given index. As soon as a
+    //      deduction is made the constraint's own masks are out of date, but
+    //      the deduction has queued it again, so it is simply left for later.
+    private void evaluate(int index) {
+        if (numbers[index] <= 0)
+            return;
+        int row = index / nCols;
+        int col = index % nCols;
+        long mine = unknownMask(row, col, row, col);
+        if (mine == 0)
+            return;
+        int ra = remaining;
+        int unknown = Long.bitCount(mine);
+        if (ra == 0) {
+            deduce(mine, row, col, SAFE);
+            return;
+        }
+        if (ra == unknown) {
+            deduce(mine, row, col, MINE);
+            return;
+        }
+        for (int i=row-2; i<=row+2; i++)
+            for (int j=col-2; j<=col+2; j++) {
+                if (!isValidCell(i, j) || (i == row && j == col) || numbers[i*nCols + j] <= 0)
+                    continue;
+                long other = unknownMask(i, j, row, col);
+                if ((mine & other) == 0)
+                    continue;
+                int rb = remaining;
+                long onlyA = mine & ~other;
+                long onlyB = other & ~mine;
+                if (rb - ra == Long.bitCount(onlyB)) {
+                    deduce(onlyB, row, col, MINE);
+                    deduce(onlyA, row, col, SAFE);
+                } else if (ra - rb == Long.bitCount(onlyA)) {
+                    deduce(onlyA, row, col, MINE);
+                    deduce(onlyB, row, col, SAFE);
+                } else
+                    continue;
+                if ((onlyA | onlyB) != 0)
+                    return;
+            }
+    }
+
+    //  Returns the unknown neighbors of the number at (row, col) as a mask
+    //      over the 7x7 area centered on (centerRow, centerCol), and sets
+    //      remaining to the number minus the neighbors known to be mines.
+    private long unknownMask(int row, int col, int centerRow, int centerCol) {
+        long mask = 0;
+        int mines = 0;
+        for (int i=row-1; i<=row+1; i++)
+            for (int j=col-1; j<=col+1; j++) {
+                if (!isValidCell(i, j))
+                    continue;
+                int index = i*nCols + j;
+                if (knowledge[index] == MINE)
+                    mines++;
+                else if (knowledge[index] == UNKNOWN && numbers[index] == HIDDEN)
+                    mask |= 1L << ((i - centerRow + 3) * WINDOW + (j - centerCol + 3));
+            }
+        remaining = numbers[row*nCols + col] - mines;
+        return mask;
+    }
+
+    //  Records every cell in the given mask, over the 7x7 area centered on
+    //      (centerRow, centerCol), as safe or as a mine.
+    private void deduce(long mask, int centerRow, int centerCol, int value) {
+        while (mask != 0) {
+            int bit = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            int row = centerRow + bit / WINDOW - 3;
+            int col = centerCol + bit % WINDOW - 3;
+            int index = row*nCols + col;
+            if (knowledge[index] != UNKNOWN)
+                continue;
+            knowledge[index] = (byte) value;
+            if (value == MINE)
+                minesFound++;
+            else {
+                if (safeTail == safeCells.length)
+                    safeCells = Arrays.copyOf(safeCells, safeTail * 2);
+                safeCells[safeTail++] = index;
+            }
+            queueNeighbors(row, col);
+        }
+    }
+
+    //  Queues the revealed numbers in the 3x3 area around the given cell,
+    //      including the cell itself.
+    private void queueNeighbors(int row, int col) {
+        for (int i=row-1; i<=row+1; i++)
+            for (int j=col-1; j<=col+1; j++)
+                if (isValidCell(i, j) && numbers[i*nCols + j] > 0)
+                    pending.markDirty(i*nCols + j);
+    }
+
+    private boolean isValidCell(int row, int col) {
+        return (row>=0 && col>=0 && row<nRows && col<nCols);
+    }
+
+}